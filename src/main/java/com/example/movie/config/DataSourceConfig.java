@@ -0,0 +1,77 @@
+package com.example.movie.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Nur aktiv, wenn ein Replikat konfiguriert ist; sonst bleibt die DataSource-Autokonfiguration von Spring Boot
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${app.datasource.replica.check-interval:5s}") Duration checkInterval,
+            @Value("${app.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${app.datasource.replica.lag-query:}") String lagQuery) {
+        return new ReplicaRoutingDataSource(primary, replica, checkInterval, maxLagSeconds, lagQuery);
+    }
+
+    // Verbindung erst beim ersten Statement holen, wenn das read-only Flag der Transaktion feststeht
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource,
+                                 @Qualifier("primaryDataSource") HikariDataSource primary) {
+        return lazyConnectionProxy(routingDataSource, primary.isAutoCommit(), primary.getTransactionIsolation());
+    }
+
+    // Mit vorgegebenen Standardwerten öffnet der Proxy beim Start keine Verbindung, um sie abzufragen
+    static LazyConnectionDataSourceProxy lazyConnectionProxy(DataSource target, boolean autoCommit,
+                                                             String transactionIsolation) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setDefaultAutoCommit(autoCommit);
+        // Ohne Hikari-Einstellung gilt der InnoDB-Standard
+        proxy.setDefaultTransactionIsolationName(
+                transactionIsolation != null ? transactionIsolation : "TRANSACTION_REPEATABLE_READ");
+        proxy.setTargetDataSource(target);
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.movie.config;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Schreibt {@link Movie} und {@link Review} direkt Feld für Feld, ohne Reflection und ohne die
+ * Objekt-Identitätstabelle von {@code @JsonIdentityInfo}; Zyklen verhindert bereits die
+ * Managed/Back-Reference. Die Ausgabe entspricht der des Standard-BeanSerializers, die Feldnamen
+ * liegen vorkodiert vor.
+ */
+@JsonComponent
+public class EntityJsonSerializers {
+
+    private static final DateTimeFormatter RELEASE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString GENRE = new SerializedString("genre");
+    private static final SerializableString RELEASE_DATE = new SerializedString("releaseDate");
+    private static final SerializableString AGE_RATING = new SerializedString("ageRating");
+    private static final SerializableString AVERAGE_RATING = new SerializedString("averageRating");
+    private static final SerializableString REVIEW_COUNT = new SerializedString("reviewCount");
+    private static final SerializableString RECOMMENDED = new SerializedString("recommended");
+    private static final SerializableString REVIEWS = new SerializedString("reviews");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString COMMENT = new SerializedString("comment");
+    private static final SerializableString RATING = new SerializedString("rating");
+
+    public static class MovieSerializer extends JsonSerializer<Movie> {
+
+        @Override
+        public void serialize(Movie movie, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject(movie);
+            gen.writeFieldName(ID);
+            gen.writeNumber(movie.getId());
+            gen.writeFieldName(TITLE);
+            gen.writeString(movie.getTitle());
+            gen.writeFieldName(GENRE);
+            gen.writeString(movie.getGenre());
+            gen.writeFieldName(RELEASE_DATE);
+            if (movie.getReleaseDate() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeString(RELEASE_DATE_FORMAT.format(movie.getReleaseDate()));
+            }
+            gen.writeFieldName(AGE_RATING);
+            gen.writeNumber(movie.getAgeRating());
+            gen.writeFieldName(AVERAGE_RATING);
+            gen.writeNumber(movie.getAverageRating());
+            gen.writeFieldName(REVIEW_COUNT);
+            gen.writeNumber(movie.getReviewCount());
+            gen.writeFieldName(RECOMMENDED);
+            gen.writeBoolean(movie.isRecommended());
+            gen.writeFieldName(REVIEWS);
+            List<Review> reviews = movie.getReviews();
+            if (reviews == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(reviews, reviews.size());
+                for (Review review : reviews) {
+                    writeReview(review, gen);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class ReviewSerializer extends JsonSerializer<Review> {
+
+        @Override
+        public void serialize(Review review, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            writeReview(review, gen);
+        }
+    }
+
+    // Der Film wird als Back-Reference nie mitgeschrieben
+    static void writeReview(Review review, JsonGenerator gen) throws IOException {
+        if (review == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(review);
+        gen.writeFieldName(ID);
+        if (review.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(review.getId());
+        }
+        gen.writeFieldName(USERNAME);
+        gen.writeString(review.getUsername());
+        gen.writeFieldName(COMMENT);
+        gen.writeString(review.getComment());
+        gen.writeFieldName(RATING);
+        gen.writeNumber(review.getRating());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.movie.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Der Upsert setzt voraus, dass (title, release_date) eindeutig ist. {@code ddl-auto=update} legt den
+ * Unique-Index bei einer bestehenden Tabelle mit Duplikaten nicht an und meldet das nur als Warnung.
+ * Fehlt der Index, wird er hier angelegt; gibt es Duplikate, bricht der Start mit einer Liste der
+ * betroffenen Schlüssel ab, bis sie bereinigt sind (siehe README).
+ */
+@Component
+public class MovieKeyGuard implements SmartInitializingSingleton {
+
+    static final String CONSTRAINT_NAME = "uk_movie_title_release_date";
+    private static final Set<String> KEY_COLUMNS = Set.of("title", "release_date");
+    private static final int MAX_REPORTED_DUPLICATES = 20;
+
+    private final Logger logger = LoggerFactory.getLogger(MovieKeyGuard.class);
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovieKeyGuard(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Ohne Tabelle (leere Datenbank vor dem ersten Schema-Update) gibt es nichts zu prüfen
+        Boolean satisfied = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? "MOVIE" : "movie";
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+                if (!tables.next()) {
+                    return true;
+                }
+            }
+            return hasUniqueKeyIndex(metaData, connection.getCatalog(), table);
+        });
+        if (satisfied == null || satisfied) {
+            return;
+        }
+
+        List<String> duplicates = jdbcTemplate.query(
+                "select title, release_date, count(*) from movie group by title, release_date having count(*) > 1 "
+                        + "order by title, release_date",
+                (rs, rowNum) -> rs.getString(1) + " / " + rs.getString(2) + " (" + rs.getLong(3) + "x)");
+        if (!duplicates.isEmpty()) {
+            throw new IllegalStateException("Unique-Index " + CONSTRAINT_NAME + " fehlt, da " + duplicates.size()
+                    + " Schlüssel (Titel / Veröffentlichungsdatum) mehrfach vorkommen, z. B. "
+                    + duplicates.subList(0, Math.min(duplicates.size(), MAX_REPORTED_DUPLICATES))
+                    + ". Duplikate bereinigen, dann neu starten.");
+        }
+        logger.warn("Unique-Index {} fehlt, lege ihn an", CONSTRAINT_NAME);
+        jdbcTemplate.execute("alter table movie add constraint " + CONSTRAINT_NAME + " unique (title, release_date)");
+    }
+
+    // Indexname je nach Datenbank verschieden, daher über die Spalten eines eindeutigen Index prüfen
+    private static boolean hasUniqueKeyIndex(DatabaseMetaData metaData, String catalog, String table)
+            throws SQLException {
+        Map<String, Set<String>> columnsByIndex = new HashMap<>();
+        try (ResultSet indexes = metaData.getIndexInfo(catalog, null, table, true, false)) {
+            while (indexes.next()) {
+                String index = indexes.getString("INDEX_NAME");
+                String column = indexes.getString("COLUMN_NAME");
+                if (index != null && column != null) {
+                    columnsByIndex.computeIfAbsent(index, name -> new HashSet<>()).add(column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return columnsByIndex.containsValue(KEY_COLUMNS);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.movie.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Leitet Verbindungen von read-only Transaktionen auf das Replikat, alles andere auf den Primary.
+ * Ein Hintergrund-Thread prüft das Replikat alle {@code checkInterval}. Ist es nicht erreichbar oder
+ * hinkt es mehr als {@code maxLagSeconds} hinterher, wird bis zur nächsten erfolgreichen Prüfung der
+ * Primary verwendet. Schlägt das Holen einer Replikat-Verbindung zwischen zwei Prüfungen fehl, erhält
+ * der Aufrufer eine Verbindung zum Primary statt eines Fehlers. Muss hinter einem
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} liegen, damit das
+ * read-only Flag beim Holen der Verbindung bereits gesetzt ist.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private final Map<Route, DataSource> pools = new EnumMap<>(Route.class);
+    private final Map<Route, LongAdder> connectionCounts = new EnumMap<>(Route.class);
+    private final LongAdder fallbackCount = new LongAdder();
+    private final Duration checkInterval;
+    private final long maxLagSeconds;
+    private final String lagQuery;
+    private ScheduledExecutorService checker;
+    private volatile boolean replicaAvailable = true;
+    private volatile long lastLagSeconds = -1;
+
+    /**
+     * @param checkInterval Abstand der Prüfungen; bei null oder 0 wird nur über {@link #refreshReplicaStatus()} geprüft
+     * @param lagQuery      SQL, dessen erste Spalte der ersten Zeile die Verzögerung des Replikats in
+     *                 Sekunden liefert; leer bedeutet, dass nur die Erreichbarkeit geprüft wird
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration checkInterval,
+                                    long maxLagSeconds, String lagQuery) {
+        pools.put(Route.PRIMARY, primary);
+        pools.put(Route.REPLICA, replica);
+        for (Route route : Route.values()) {
+            connectionCounts.put(route, new LongAdder());
+        }
+        this.checkInterval = checkInterval;
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagQuery = lagQuery;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    // Die Prüfung läuft nie auf einem Request-Thread, auch ein hängendes Replikat blockiert also keine Anfrage
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (checkInterval == null || checkInterval.isZero() || checkInterval.isNegative()) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replica-check").daemon().factory());
+        checker.scheduleWithFixedDelay(this::refreshReplicaStatus, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaAvailable
+                ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionFactory factory) throws SQLException {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly && replicaAvailable) {
+            try {
+                Connection connection = factory.connect(pools.get(Route.REPLICA));
+                connectionCounts.get(Route.REPLICA).increment();
+                return connection;
+            } catch (SQLException e) {
+                // Zwischen zwei Prüfungen ausgefallen; erst die nächste erfolgreiche Prüfung gibt es wieder frei
+                replicaAvailable = false;
+                logger.warn("Replikat nicht erreichbar, verwende Primary: {}", e.getMessage());
+            }
+        }
+        if (readOnly) {
+            fallbackCount.increment();
+        }
+        Connection connection = factory.connect(pools.get(Route.PRIMARY));
+        connectionCounts.get(Route.PRIMARY).increment();
+        return connection;
+    }
+
+    void refreshReplicaStatus() {
+        replicaAvailable = checkReplica();
+    }
+
+    boolean checkReplica() {
+        try (Connection connection = pools.get(Route.REPLICA).getConnection()) {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                lastLagSeconds = -1;
+                return connection.isValid(1);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                if (!resultSet.next()) {
+                    logger.warn("Replikat liefert keine Verzögerung, verwende Primary");
+                    return false;
+                }
+                long lag = resultSet.getLong(1);
+                if (resultSet.wasNull()) {
+                    logger.warn("Replikation auf dem Replikat steht, verwende Primary");
+                    return false;
+                }
+                lastLagSeconds = lag;
+                if (lag > maxLagSeconds) {
+                    logger.warn("Replikat hinkt {}s hinterher (max. {}s), verwende Primary", lag, maxLagSeconds);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException | RuntimeException e) {
+            // RuntimeException ebenfalls abfangen, sonst beendet der Executor die periodische Prüfung
+            logger.warn("Replikat nicht erreichbar, verwende Primary: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public DataSource getPool(Route route) {
+        return pools.get(route);
+    }
+
+    public long getConnectionCount(Route route) {
+        return connectionCounts.get(route).sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.movie.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Map;
+
+/**
+ * Auf MySQL emuliert Hibernate die ID-Sequenzen mit Tabellen ({@code movie_seq} usw.), die bei einer
+ * bestehenden Datenbank mit 1 beginnen und dann mit vorhandenen IDs kollidieren. Liegt der nächste
+ * Allokationsblock nicht vollständig über {@code MAX(id)}, wird {@code next_val} vor dem ersten Insert
+ * über {@code MAX(id)} plus einen Allokationsblock gehoben. Leere Tabellen bleiben unverändert. Bei echten
+ * Datenbanksequenzen (z. B. H2) gibt es diese Tabellen nicht und es passiert nichts.
+ */
+@Component
+public class SequenceGuard implements SmartInitializingSingleton {
+
+    // Muss mindestens der allocationSize der @SequenceGenerator entsprechen
+    static final int ALLOCATION_SIZE = 50;
+
+    // Sequenztabelle -> Tabelle, deren IDs sie vergibt
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "movie_seq", "movie",
+            "review_seq", "review",
+            "genre_seq", "genre");
+
+    private final Logger logger = LoggerFactory.getLogger(SequenceGuard.class);
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceGuard(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach(this::advancePastMaxId);
+    }
+
+    void advancePastMaxId(String sequenceTable, String entityTable) {
+        if (!tableExists(sequenceTable) || !tableExists(entityTable)) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + entityTable, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+        long nextValue = maxId + ALLOCATION_SIZE + 1;
+        // Der gepoolte Optimizer vergibt IDs ab next_val - ALLOCATION_SIZE + 1; nur wenn das <= MAX(id) ist, droht
+        // eine Kollision. Nur anheben, nie zurücksetzen: parallel startende Instanzen können weitergezählt haben
+        int updated = jdbcTemplate.update("update " + sequenceTable + " set next_val = ? where next_val < ?",
+                nextValue, maxId + ALLOCATION_SIZE);
+        if (updated > 0) {
+            logger.warn("Sequenz {} auf {} angehoben (MAX(id) in {} ist {})", sequenceTable, nextValue, entityTable, maxId);
+        }
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                return tables.next();
+            }
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
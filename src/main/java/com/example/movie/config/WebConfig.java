@@ -0,0 +1,54 @@
+package com.example.movie.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binäre Formate für interne Clients: CBOR und Smile werden per Accept- bzw. Content-Type-Header
+ * ausgehandelt, JSON bleibt der Standard. Beide Konverter verwenden die von Spring Boot konfigurierte
+ * Jackson-Konfiguration inklusive {@link EntityJsonSerializers}.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public WebConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Spring MVC registriert eigene CBOR-/Smile-Konverter ohne die Boot-Konfiguration; diese werden ersetzt
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+
+        // Direkt hinter JSON einreihen, damit JSON bei Accept: */* gewinnt
+        int position = converters.size();
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                position = i + 1;
+                break;
+            }
+        }
+        converters.addAll(position, List.of(
+                new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.getObject()
+                        .factory(new CBORFactory()).build()),
+                new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.getObject()
+                        .factory(new SmileFactory()).build())));
+    }
+}
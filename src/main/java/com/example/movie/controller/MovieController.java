@@ -1,16 +1,39 @@
 package com.example.movie.controller;
 
+import com.example.movie.config.WebConfig;
+import com.example.movie.dto.MovieCursorPage;
+import com.example.movie.dto.MovieSummary;
+import com.example.movie.dto.MovieVersion;
+import com.example.movie.dto.PatchedMovie;
+import com.example.movie.dto.RatingDistribution;
+import com.example.movie.dto.UpsertResult;
+import com.example.movie.exception.PreconditionFailedException;
+import com.example.movie.index.MovieRankingIndex;
 import com.example.movie.model.Movie;
+import com.example.movie.service.MovieResponseCache;
 import com.example.movie.service.MovieService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/movies")
@@ -18,9 +41,14 @@ import java.util.List;
 public class MovieController {
 
     private final MovieService movieService;
+    private final ObjectMapper objectMapper;
+    private final MovieResponseCache movieResponseCache;
 
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, ObjectMapper objectMapper,
+                           MovieResponseCache movieResponseCache) {
         this.movieService = movieService;
+        this.objectMapper = objectMapper;
+        this.movieResponseCache = movieResponseCache;
     }
 
     @GetMapping
@@ -29,10 +57,135 @@ public class MovieController {
         return movieService.getAllMovies();
     }
 
+    @GetMapping(params = {"view=summary", "!limit"})
+    @Operation(summary = "Alle Filme als Zusammenfassung (ohne Reviews) lesen")
+    public List<MovieSummary> getAllSummaries() {
+        return movieService.getAllMovieSummaries();
+    }
+
+    @GetMapping(params = "limit")
+    @Operation(summary = "Filme seitenweise per Cursor lesen")
+    public ResponseEntity<?> getPage(@RequestParam(required = false) String after, @RequestParam int limit) {
+        try {
+            MovieCursorPage<Movie> page = movieService.getMoviesAfter(after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping(params = {"limit", "view=summary"})
+    @Operation(summary = "Filme seitenweise per Cursor als Zusammenfassung (ohne Reviews) lesen")
+    public ResponseEntity<?> getSummaryPage(@RequestParam(required = false) String after, @RequestParam int limit) {
+        try {
+            MovieCursorPage<MovieSummary> page = movieService.getMovieSummariesAfter(after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Alle Filme als NDJSON-Stream exportieren")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        movieService.exportMovies(movie -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(movie));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Filme per Volltextsuche im Titel finden (nach Relevanz sortiert)")
+    public List<Movie> search(@RequestParam String q,
+                              @RequestParam(defaultValue = "0") int page,
+                              @RequestParam(defaultValue = "20") int size) {
+        return movieService.searchMovies(q, page, size);
+    }
+
+    @GetMapping("/top")
+    @Operation(summary = "Bestbewertete Filme (gewichtet nach Anzahl Reviews), optional pro Genre")
+    public List<MovieRankingIndex.RankedMovie> getTop(@RequestParam(defaultValue = "10") int limit,
+                                                      @RequestParam(required = false) String genre) {
+        return movieService.getTopMovies(genre, limit);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Film mit ID lesen")
-    public ResponseEntity<Movie> getById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, WebRequest request,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                          String acceptEncoding) throws IOException {
+        // Version vor dem Film lesen: ein veraltetes ETag führt höchstens zu einem unnötigen 200, nie zu einem falschen 304
+        Optional<MovieVersion> version = movieService.getMovieVersion(id);
+        if (version.isPresent() && request.checkNotModified(version.get().etag())) {
+            return null;
+        }
+
+        MovieResponseCache.Entry cached = version.map(v -> movieResponseCache.get(id, v)).orElse(null);
+        if (cached == null) {
+            Optional<Movie> movie = movieService.getMovieById(id);
+            if (movie.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            byte[] json = objectMapper.writeValueAsBytes(movie.get());
+            if (version.isEmpty()) {
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            }
+            cached = MovieResponseCache.Entry.of(version.get(), json);
+            movieResponseCache.put(id, cached);
+        }
+
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(cached.version().etag())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return ok.body(cached.json());
+    }
+
+    // CBOR/Smile umgehen den JSON-Byte-Cache; das Objekt wird vom passenden Konverter geschrieben
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_CBOR_VALUE, WebConfig.APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Film mit ID binär (CBOR/Smile) lesen")
+    public ResponseEntity<Movie> getByIdBinary(@PathVariable Long id, WebRequest request) {
+        Optional<MovieVersion> version = movieService.getMovieVersion(id);
+        if (version.isPresent() && request.checkNotModified(version.get().etag())) {
+            return null;
+        }
         return movieService.getMovieById(id)
+                .map(movie -> {
+                    ResponseEntity.BodyBuilder ok = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+                    version.ifPresent(v -> ok.eTag(v.etag()));
+                    return ok.body(movie);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    @GetMapping("/{id}/ratings/histogram")
+    @Operation(summary = "Bewertungsverteilung (Histogramm, Median, Perzentile) eines Films lesen")
+    public ResponseEntity<RatingDistribution> getRatingHistogram(@PathVariable Long id) {
+        return movieService.getRatingDistribution(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -49,12 +202,24 @@ public class MovieController {
         return movieService.getMoviesByRecommended(recommended);
     }
 
+    @GetMapping(value = "/filter/recommended", params = "view=summary")
+    @Operation(summary = "Filme nach Empfehlung als Zusammenfassung filtern")
+    public List<MovieSummary> getSummariesByRecommended(@RequestParam boolean recommended) {
+        return movieService.getMovieSummariesByRecommended(recommended);
+    }
+
     @GetMapping("/filter/genre")
     @Operation(summary = "Filme nach Genre (Text) filtern")
     public List<Movie> getByGenre(@RequestParam String genre) {
         return movieService.getMoviesByGenre(genre);
     }
 
+    @GetMapping(value = "/filter/genre", params = "view=summary")
+    @Operation(summary = "Filme nach Genre als Zusammenfassung filtern")
+    public List<MovieSummary> getSummariesByGenre(@RequestParam String genre) {
+        return movieService.getMovieSummariesByGenre(genre);
+    }
+
     @PostMapping
     @Operation(summary = "Einen neuen Film erstellen")
     public ResponseEntity<Movie> create(@Valid @RequestBody Movie movie) {
@@ -68,17 +233,44 @@ public class MovieController {
         return movieService.createMovies(movies);
     }
 
+    @PostMapping("/upsert")
+    @Operation(summary = "Filme anhand von Titel und Veröffentlichungsdatum anlegen oder aktualisieren")
+    public ResponseEntity<?> upsert(@Valid @RequestBody List<Movie> movies) {
+        try {
+            UpsertResult result = movieService.upsertMovies(movies);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Film mit ID aktualisieren")
-    public ResponseEntity<Movie> update(@PathVariable Long id, @Valid @RequestBody Movie movie) {
+    public ResponseEntity<Movie> update(@PathVariable Long id, @Valid @RequestBody Movie movie,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Movie updated = movieService.updateMovie(id, movie);
+            Movie updated = movieService.updateMovie(id, movie, MovieVersion.parse(ifMatch));
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException | PreconditionFailedException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    // Antwortet mit der Zusammenfassung, damit die Reviews für die Antwort nicht nachgeladen werden
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Film teilweise aktualisieren (JSON Merge Patch)")
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody JsonNode patch,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            PatchedMovie patched = movieService.patchMovie(id, patch, MovieVersion.parse(ifMatch));
+            return ResponseEntity.ok().eTag(patched.version().etag()).body(MovieSummary.of(patched.movie()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Film mit ID löschen")
     public ResponseEntity<Void> deleteById(@PathVariable Long id) {
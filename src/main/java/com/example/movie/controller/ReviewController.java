@@ -1,15 +1,25 @@
 package com.example.movie.controller;
 
+import com.example.movie.dto.MovieVersion;
+import com.example.movie.exception.PreconditionFailedException;
 import com.example.movie.model.Review;
+import com.example.movie.service.ReviewIngestionQueue;
 import com.example.movie.service.ReviewService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -18,25 +28,44 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final ReviewIngestionQueue reviewIngestionQueue;
 
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, ReviewIngestionQueue reviewIngestionQueue) {
         this.reviewService = reviewService;
+        this.reviewIngestionQueue = reviewIngestionQueue;
     }
 
     @GetMapping
     @Operation(summary = "Get all reviews or filter by movieId")
-    public List<Review> getAll(@RequestParam(required = false) Long movieId) {
-        if (movieId != null) {
-            return reviewService.getReviewsByMovieId(movieId);
+    public ResponseEntity<List<Review>> getAll(@RequestParam(required = false) Long movieId, WebRequest request) {
+        if (movieId == null) {
+            return ResponseEntity.ok(reviewService.getAllReviews());
         }
-        return reviewService.getAllReviews();
+        // Every review change bumps the movie version or a review version, so no review needs to be loaded for a 304
+        Optional<MovieVersion> version = reviewService.getMovieVersion(movieId);
+        if (version.isPresent() && request.checkNotModified(version.get().etag())) {
+            return null;
+        }
+        // JSON, CBOR and Smile share the ETag, so caches must key on Accept as well
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        version.ifPresent(v -> ok.eTag(v.etag()));
+        return ok.body(reviewService.getReviewsByMovieId(movieId));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Full-text search in review comments (ranked by relevance)")
+    public List<Review> search(@RequestParam String q,
+                               @RequestParam(defaultValue = "0") int page,
+                               @RequestParam(defaultValue = "20") int size) {
+        return reviewService.searchReviews(q, page, size);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get review by ID")
     public ResponseEntity<Review> getById(@PathVariable Long id) {
+        // The version is not part of the body, so clients read it from the ETag for a later If-Match
         return reviewService.getReviewById(id)
-                .map(ResponseEntity::ok)
+                .map(review -> ResponseEntity.ok().eTag(etag(review)).body(review))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -51,6 +80,21 @@ public class ReviewController {
         }
     }
 
+    @PostMapping("/async")
+    @Operation(summary = "Queue a review for asynchronous, batched writing (202, or 429 when the queue is full); reviews for unknown movies are dropped when the batch is written")
+    public ResponseEntity<?> createAsync(@Valid @RequestBody Review review) {
+        try {
+            if (!reviewIngestionQueue.offer(review)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("Review queue is full, retry later");
+            }
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/batch")
     @Operation(summary = "Create multiple reviews")
     public ResponseEntity<?> createBatch(@Valid @RequestBody List<Review> reviews) {
@@ -64,23 +108,40 @@ public class ReviewController {
 
     @PutMapping("/{id}")
     @Operation(summary = "Update review by ID")
-    public ResponseEntity<?> update(@PathVariable Long id, @Valid @RequestBody Review review) {
+    public ResponseEntity<?> update(@PathVariable Long id, @Valid @RequestBody Review review,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Review updated = reviewService.updateReview(id, review);
-            return ResponseEntity.ok(updated);
+            Review updated = reviewService.updateReview(id, review, parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(etag(updated)).body(updated);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException | PreconditionFailedException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Partially update a review (JSON merge patch)")
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody JsonNode patch,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            Review patched = reviewService.patchReview(id, patch, parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(etag(patched)).body(patched);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete review by ID")
     public ResponseEntity<Void> deleteById(@PathVariable Long id) {
         try {
             reviewService.deleteReviewById(id);
             return ResponseEntity.noContent().build();
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -92,4 +153,24 @@ public class ReviewController {
         reviewService.deleteAllReviews();
         return ResponseEntity.noContent().build();
     }
+
+    private static String etag(Review review) {
+        return "W/\"" + review.getVersion() + "\"";
+    }
+
+    // null without a header or for "*", -1 for an unreadable value so that it matches no version
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
 }
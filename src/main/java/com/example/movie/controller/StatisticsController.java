@@ -0,0 +1,34 @@
+package com.example.movie.controller;
+
+import com.example.movie.service.StatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+@Tag(name = "Statistik API", description = "Laufzeitstatistiken für Betrieb und Tuning")
+public class StatisticsController {
+
+    private final StatisticsService statisticsService;
+
+    public StatisticsController(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    @GetMapping("/cache")
+    @Operation(summary = "Treffer/Fehlzugriffe des Second-Level-Caches pro Region")
+    public Map<String, Map<String, Long>> cacheStatistics() {
+        return statisticsService.getCacheStatistics();
+    }
+
+    @GetMapping("/datasource")
+    @Operation(summary = "Verbindungspools (Primary/Replikat) mit Auslastung und Routing-Zählern")
+    public Map<String, Map<String, Object>> dataSourceStatistics() {
+        return statisticsService.getDataSourceStatistics();
+    }
+}
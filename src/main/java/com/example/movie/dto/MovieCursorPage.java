@@ -0,0 +1,7 @@
+package com.example.movie.dto;
+
+import java.util.List;
+
+// items sind je nach ?view volle Filme oder MovieSummary
+public record MovieCursorPage<T>(List<T> items, String nextCursor) {
+}
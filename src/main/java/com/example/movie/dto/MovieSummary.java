@@ -0,0 +1,12 @@
+package com.example.movie.dto;
+
+import com.example.movie.model.Movie;
+
+public record MovieSummary(long id, String title, String genre, double averageRating, boolean recommended,
+                           int reviewCount) {
+
+    public static MovieSummary of(Movie movie) {
+        return new MovieSummary(movie.getId(), movie.getTitle(), movie.getGenre(), movie.getAverageRating(),
+                movie.isRecommended(), movie.getReviewCount());
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.movie.dto;
+
+import java.time.LocalDate;
+
+// Gespeicherter Stand eines Films, soweit der Upsert ihn zum Abgleich braucht
+public record MovieUpsertState(long id, String title, LocalDate releaseDate, String genre, String contentHash,
+                               boolean recommended) {
+}
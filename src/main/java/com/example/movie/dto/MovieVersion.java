@@ -0,0 +1,41 @@
+package com.example.movie.dto;
+
+/**
+ * Versionsstand eines Films samt seiner Reviews. {@code reviews} ist Anzahl plus Summe der
+ * Review-Versionen und ändert sich daher auch bei reinen Kommentar-Änderungen, die den Film selbst
+ * nicht berühren.
+ */
+public record MovieVersion(long movie, long reviews) {
+
+    public String etag() {
+        return "W/\"" + movie + "-" + reviews + "\"";
+    }
+
+    /**
+     * @return Film- und Review-Version aus einem If-Match-Header, {@code null} ohne Header oder bei {@code *};
+     *         nicht lesbare Teile werden -1 und passen damit auf keine Version
+     */
+    public static MovieVersion parse(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        int separator = tag.indexOf('-');
+        if (separator < 0) {
+            return new MovieVersion(parsePart(tag), -1);
+        }
+        return new MovieVersion(parsePart(tag.substring(0, separator)), parsePart(tag.substring(separator + 1)));
+    }
+
+    private static long parsePart(String part) {
+        try {
+            return Long.parseLong(part);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.movie.dto;
+
+import com.example.movie.model.Movie;
+
+/**
+ * Ergebnis eines PATCH auf einen Film. Die Film-Version wird erst beim Commit erhöht, {@link #version()} ist
+ * daher erst danach aussagekräftig; der Review-Teil ändert sich durch den Patch nicht.
+ */
+public record PatchedMovie(Movie movie, long reviewsVersion) {
+
+    public MovieVersion version() {
+        return new MovieVersion(movie.getVersion(), reviewsVersion);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.movie.dto;
+
+import com.example.movie.model.RatingHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public record RatingDistribution(long movieId, int total, double averageRating, Map<Integer, Integer> buckets,
+                                 Double median, Integer p25, Integer p75, Integer p90) {
+
+    public static RatingDistribution of(long movieId, double averageRating, RatingHistogram histogram) {
+        Map<Integer, Integer> buckets = new LinkedHashMap<>();
+        for (int rating = RatingHistogram.MIN_RATING; rating <= RatingHistogram.MAX_RATING; rating++) {
+            buckets.put(rating, histogram.count(rating));
+        }
+        if (histogram.isEmpty()) {
+            return new RatingDistribution(movieId, 0, averageRating, buckets, null, null, null, null);
+        }
+        return new RatingDistribution(movieId, histogram.total(), averageRating, buckets, histogram.median(),
+                histogram.percentile(25), histogram.percentile(75), histogram.percentile(90));
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.movie.dto;
+
+public record UpsertResult(int inserted, int updated, int unchanged) {
+
+    public UpsertResult plus(UpsertResult other) {
+        return new UpsertResult(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.movie.exception;
 
+import java.util.Collection;
+
 public class MovieNotFoundException extends RuntimeException {
     public MovieNotFoundException(Long id) {
         super("Movie with ID " + id + " not found.");
     }
+
+    public MovieNotFoundException(Collection<Long> ids) {
+        super("Movies with IDs " + ids + " not found.");
+    }
 }
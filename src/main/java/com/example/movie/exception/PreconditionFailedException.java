@@ -0,0 +1,7 @@
+package com.example.movie.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String entity, Long id) {
+        super(entity + " with ID " + id + " has changed since it was read (If-Match does not match).");
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.movie.index;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Thread-sicherer invertierter Index über kurze Texte. Posting-Listen werden als primitive
+ * Arrays (Dokument-ID und Termfrequenz) gehalten, die Gewichtung erfolgt per TF-IDF.
+ * <p>
+ * Zu jedem Dokument wird die Version gemerkt, mit der es zuletzt geschrieben wurde. Änderungen mit
+ * älterer Version werden verworfen, ebenso spät eintreffende Änderungen an bereits entfernten Dokumenten.
+ * Solche Nachzügler kommen nur kurz nach dem Entfernen an, daher wird ein entferntes Dokument nur für
+ * {@link #TOMBSTONE_TTL_NANOS} gesperrt und höchstens {@link #MAX_TOMBSTONES} Sperren gehalten.
+ */
+public class InvertedIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    static final long TOMBSTONE_TTL_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final int MAX_TOMBSTONES = 100_000;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, String[]> documentTerms = new HashMap<>();
+    private final Map<Long, Long> versions = new HashMap<>();
+    // ID -> Zeitpunkt des Entfernens, in Einfügereihenfolge, damit abgelaufene Sperren vorne liegen
+    private final LinkedHashMap<Long, Long> tombstones = new LinkedHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongSupplier nanoTime;
+
+    public InvertedIndex() {
+        this(System::nanoTime);
+    }
+
+    InvertedIndex(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    public record Hit(long id, double score) {
+    }
+
+    public record SearchResult(List<Hit> hits, int total) {
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return false, wenn bereits eine neuere Version indexiert oder das Dokument entfernt wurde
+     */
+    public boolean index(long documentId, long version, String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            expireTombstones();
+            if (tombstones.containsKey(documentId)
+                    || version < versions.getOrDefault(documentId, Long.MIN_VALUE)) {
+                return false;
+            }
+            versions.put(documentId, version);
+            removeInternal(documentId);
+            if (frequencies.isEmpty()) {
+                return true;
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new PostingList())
+                        .add(documentId, entry.getValue());
+            }
+            documentTerms.put(documentId, frequencies.keySet().toArray(new String[0]));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(documentId);
+            addTombstone(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAll(Collection<Long> documentIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long documentId : documentIds) {
+                removeInternal(documentId);
+                addTombstone(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Long documentId : new ArrayList<>(versions.keySet())) {
+                addTombstone(documentId);
+            }
+            postings.clear();
+            documentTerms.clear();
+            versions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Verwirft auch die gemerkten Versionen und Sperren, nur für den vollständigen Neuaufbau
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            versions.clear();
+            tombstones.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int tombstoneCount() {
+        lock.readLock().lock();
+        try {
+            return tombstones.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documentTerms.size();
+            for (String term : terms) {
+                PostingList postingList = postings.get(term);
+                if (postingList == null) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (double) documentCount / postingList.size);
+                for (int i = 0; i < postingList.size; i++) {
+                    double tf = 1.0 + Math.log(postingList.frequencies[i]);
+                    scores.merge(postingList.documentIds[i], tf * idf, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Nur die besten offset + limit Treffer sortiert halten; der Kopf des Heaps ist der schwächste
+        int from = Math.max(offset, 0);
+        int pageEnd = (int) Math.min((long) from + Math.max(limit, 0), scores.size());
+        if (from >= pageEnd) {
+            return new SearchResult(Collections.emptyList(), scores.size());
+        }
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+        PriorityQueue<Hit> best = new PriorityQueue<>(pageEnd, ranking.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            Hit hit = new Hit(entry.getKey(), entry.getValue());
+            if (best.size() < pageEnd) {
+                best.add(hit);
+            } else if (ranking.compare(hit, best.peek()) < 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        Hit[] top = new Hit[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = best.poll();
+        }
+        return new SearchResult(List.of(Arrays.copyOfRange(top, from, pageEnd)), scores.size());
+    }
+
+    private void addTombstone(long documentId) {
+        versions.remove(documentId);
+        // Neu einfügen, damit die Reihenfolge dem Zeitpunkt des Entfernens entspricht
+        tombstones.remove(documentId);
+        tombstones.put(documentId, nanoTime.getAsLong());
+        expireTombstones();
+    }
+
+    private void expireTombstones() {
+        long now = nanoTime.getAsLong();
+        Iterator<Map.Entry<Long, Long>> iterator = tombstones.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> eldest = iterator.next();
+            if (tombstones.size() <= MAX_TOMBSTONES && now - eldest.getValue() < TOMBSTONE_TTL_NANOS) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private void removeInternal(long documentId) {
+        String[] terms = documentTerms.remove(documentId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            PostingList postingList = postings.get(term);
+            if (postingList != null && postingList.remove(documentId) && postingList.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    // Nach Dokument-ID sortiert; neue IDs aus der Sequenz landen fast immer am Ende
+    private static final class PostingList {
+
+        private long[] documentIds = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(long documentId, int frequency) {
+            int position = size == 0 || documentIds[size - 1] < documentId
+                    ? size
+                    : -(Arrays.binarySearch(documentIds, 0, size, documentId) + 1);
+            if (size == documentIds.length) {
+                documentIds = Arrays.copyOf(documentIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(documentIds, position, documentIds, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            documentIds[position] = documentId;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        boolean remove(long documentId) {
+            int position = Arrays.binarySearch(documentIds, 0, size, documentId);
+            if (position < 0) {
+                return false;
+            }
+            size--;
+            System.arraycopy(documentIds, position + 1, documentIds, position, size - position);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.movie.index;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-sichere Rangliste der Filme nach gewichteter Bewertung (Bayes'scher Mittelwert),
+ * gesamt und pro Genre. Die Sortierung wird bei jeder Änderung gepflegt, sodass ein Top-N
+ * nur die ersten N Einträge der geordneten Menge liest. Wie im {@link InvertedIndex} werden Änderungen mit
+ * älterer Version als der zuletzt übernommenen sowie Änderungen an entfernten Filmen verworfen; entfernte
+ * Filme werden ebenso nur für {@link #TOMBSTONE_TTL_NANOS} gesperrt und höchstens {@link #MAX_TOMBSTONES}
+ * Sperren gehalten.
+ */
+public class MovieRankingIndex {
+
+    // Weicht der globale Mittelwert stärker ab, werden alle Scores neu berechnet
+    private static final double PRIOR_DRIFT_THRESHOLD = 0.05;
+    static final long TOMBSTONE_TTL_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final int MAX_TOMBSTONES = 100_000;
+
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparingLong(Entry::movieId);
+
+    private final int minVotes;
+    private final Map<Long, MovieStats> movies = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, Long> versions = new HashMap<>();
+    // ID -> Zeitpunkt des Entfernens, in Einfügereihenfolge, damit abgelaufene Sperren vorne liegen
+    private final LinkedHashMap<Long, Long> tombstones = new LinkedHashMap<>();
+    private final NavigableSet<Entry> overall = new TreeSet<>(RANKING_ORDER);
+    private final Map<String, NavigableSet<Entry>> byGenre = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongSupplier nanoTime;
+    private long totalRatingSum;
+    private long totalReviewCount;
+    private double priorMean;
+
+    public record RankedMovie(long id, String title, String genre, double averageRating, int reviewCount,
+                              double weightedRating) {
+    }
+
+    public record MovieStats(long id, long version, String title, String genre, Set<String> genreNames, long ratingSum,
+                             int reviewCount) {
+    }
+
+    private record Entry(long movieId, double score) {
+    }
+
+    /**
+     * @param minVotes Anzahl "virtueller" Bewertungen mit dem globalen Mittelwert, die jedem Film
+     *                 hinzugerechnet werden; Filme mit wenigen Reviews rücken dadurch zur Mitte
+     */
+    public MovieRankingIndex(int minVotes) {
+        this(minVotes, System::nanoTime);
+    }
+
+    MovieRankingIndex(int minVotes, LongSupplier nanoTime) {
+        this.minVotes = minVotes;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return false, wenn bereits eine neuere Version übernommen oder der Film entfernt wurde
+     */
+    public boolean put(MovieStats stats) {
+        lock.writeLock().lock();
+        try {
+            expireTombstones();
+            if (isStale(stats)) {
+                return false;
+            }
+            removeInternal(stats.id());
+            movies.put(stats.id(), stats);
+            totalRatingSum += stats.ratingSum();
+            totalReviewCount += stats.reviewCount();
+            if (!rescoreIfPriorDrifted()) {
+                insertEntry(stats);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<MovieStats> stats) {
+        lock.writeLock().lock();
+        try {
+            expireTombstones();
+            for (MovieStats movie : stats) {
+                if (isStale(movie)) {
+                    continue;
+                }
+                removeInternal(movie.id());
+                movies.put(movie.id(), movie);
+                totalRatingSum += movie.ratingSum();
+                totalReviewCount += movie.reviewCount();
+            }
+            rescore();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long movieId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(movieId);
+            addTombstone(movieId);
+            rescoreIfPriorDrifted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAll(Collection<Long> movieIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long movieId : movieIds) {
+                removeInternal(movieId);
+                addTombstone(movieId);
+            }
+            rescoreIfPriorDrifted();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Alle Bewertungen entfernt: Filme bleiben bekannt, erscheinen aber nicht mehr in der Rangliste
+    public void resetRatings() {
+        lock.writeLock().lock();
+        try {
+            movies.replaceAll((id, stats) -> new MovieStats(id, stats.version(), stats.title(), stats.genre(), stats.genreNames(), 0, 0));
+            totalRatingSum = 0;
+            totalReviewCount = 0;
+            rescore();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (Long movieId : new ArrayList<>(versions.keySet())) {
+                addTombstone(movieId);
+            }
+            clearInternal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Verwirft auch die gemerkten Versionen und Sperren, nur für den vollständigen Neuaufbau
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            clearInternal();
+            versions.clear();
+            tombstones.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int tombstoneCount() {
+        lock.readLock().lock();
+        try {
+            return tombstones.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return overall.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RankedMovie> top(int limit) {
+        lock.readLock().lock();
+        try {
+            return collect(overall, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RankedMovie> top(String genreName, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> ranking = byGenre.get(genreName);
+            return ranking == null ? Collections.emptyList() : collect(ranking, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<RankedMovie> collect(NavigableSet<Entry> ranking, int limit) {
+        List<RankedMovie> result = new ArrayList<>(Math.min(Math.max(limit, 0), ranking.size()));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            MovieStats stats = movies.get(entry.movieId());
+            result.add(new RankedMovie(stats.id(), stats.title(), stats.genre(),
+                    (double) stats.ratingSum() / stats.reviewCount(), stats.reviewCount(), entry.score()));
+        }
+        return result;
+    }
+
+    private double weightedRating(MovieStats stats) {
+        return (stats.ratingSum() + minVotes * priorMean) / (stats.reviewCount() + minVotes);
+    }
+
+    private double currentMean() {
+        return totalReviewCount == 0 ? 0.0 : (double) totalRatingSum / totalReviewCount;
+    }
+
+    private boolean rescoreIfPriorDrifted() {
+        if (Math.abs(currentMean() - priorMean) <= PRIOR_DRIFT_THRESHOLD) {
+            return false;
+        }
+        rescore();
+        return true;
+    }
+
+    private void rescore() {
+        priorMean = currentMean();
+        entries.clear();
+        overall.clear();
+        byGenre.clear();
+        for (MovieStats stats : movies.values()) {
+            insertEntry(stats);
+        }
+    }
+
+    private void insertEntry(MovieStats stats) {
+        // Filme ohne Reviews haben keine Bewertung und werden nicht gerankt
+        if (stats.reviewCount() == 0) {
+            return;
+        }
+        Entry entry = new Entry(stats.id(), weightedRating(stats));
+        entries.put(stats.id(), entry);
+        overall.add(entry);
+        for (String genreName : stats.genreNames()) {
+            byGenre.computeIfAbsent(genreName, name -> new TreeSet<>(RANKING_ORDER)).add(entry);
+        }
+    }
+
+    private boolean isStale(MovieStats stats) {
+        if (tombstones.containsKey(stats.id())
+                || stats.version() < versions.getOrDefault(stats.id(), Long.MIN_VALUE)) {
+            return true;
+        }
+        versions.put(stats.id(), stats.version());
+        return false;
+    }
+
+    private void addTombstone(long movieId) {
+        versions.remove(movieId);
+        // Neu einfügen, damit die Reihenfolge dem Zeitpunkt des Entfernens entspricht
+        tombstones.remove(movieId);
+        tombstones.put(movieId, nanoTime.getAsLong());
+        expireTombstones();
+    }
+
+    private void expireTombstones() {
+        long now = nanoTime.getAsLong();
+        Iterator<Map.Entry<Long, Long>> iterator = tombstones.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> eldest = iterator.next();
+            if (tombstones.size() <= MAX_TOMBSTONES && now - eldest.getValue() < TOMBSTONE_TTL_NANOS) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private void clearInternal() {
+        movies.clear();
+        entries.clear();
+        overall.clear();
+        byGenre.clear();
+        totalRatingSum = 0;
+        totalReviewCount = 0;
+        priorMean = 0;
+    }
+
+    private void removeInternal(long movieId) {
+        MovieStats stats = movies.remove(movieId);
+        if (stats == null) {
+            return;
+        }
+        totalRatingSum -= stats.ratingSum();
+        totalReviewCount -= stats.reviewCount();
+        Entry entry = entries.remove(movieId);
+        if (entry == null) {
+            return;
+        }
+        overall.remove(entry);
+        for (String genreName : stats.genreNames()) {
+            NavigableSet<Entry> ranking = byGenre.get(genreName);
+            if (ranking != null && ranking.remove(entry) && ranking.isEmpty()) {
+                byGenre.remove(genreName);
+            }
+        }
+    }
+}
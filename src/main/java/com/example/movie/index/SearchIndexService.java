@@ -0,0 +1,105 @@
+package com.example.movie.index;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.example.movie.repository.MovieRepository;
+import com.example.movie.repository.ReviewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+public class SearchIndexService {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+    private final InvertedIndex movieTitles = new InvertedIndex();
+    private final InvertedIndex reviewComments = new InvertedIndex();
+    private final MovieRepository movieRepository;
+    private final ReviewRepository reviewRepository;
+
+    public SearchIndexService(MovieRepository movieRepository, ReviewRepository reviewRepository) {
+        this.movieRepository = movieRepository;
+        this.reviewRepository = reviewRepository;
+    }
+
+    public void rebuild() {
+        movieTitles.reset();
+        reviewComments.reset();
+
+        long afterId = 0;
+        List<Movie> movies;
+        do {
+            movies = movieRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (Movie movie : movies) {
+                indexMovie(movie);
+                afterId = movie.getId();
+            }
+        } while (movies.size() == REBUILD_PAGE_SIZE);
+
+        afterId = 0;
+        List<Review> reviews;
+        do {
+            reviews = reviewRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (Review review : reviews) {
+                indexReview(review);
+                afterId = review.getId();
+            }
+        } while (reviews.size() == REBUILD_PAGE_SIZE);
+
+        logger.info("Suchindex aufgebaut: {} Filme, {} Reviews", movieTitles.size(), reviewComments.size());
+    }
+
+    public void indexMovie(Movie movie) {
+        movieTitles.index(movie.getId(), movie.getVersion(), movie.getTitle());
+    }
+
+    public void removeMovie(long movieId) {
+        movieTitles.remove(movieId);
+    }
+
+    public void removeMovies(Collection<Long> movieIds) {
+        movieTitles.removeAll(movieIds);
+    }
+
+    public void clearMovies() {
+        movieTitles.clear();
+    }
+
+    public void indexReview(Review review) {
+        if (review.getId() == null) {
+            return;
+        }
+        reviewComments.index(review.getId(), review.getVersion(), review.getComment());
+    }
+
+    public void removeReview(long reviewId) {
+        reviewComments.remove(reviewId);
+    }
+
+    public void removeReviews(Collection<Long> reviewIds) {
+        reviewComments.removeAll(reviewIds);
+    }
+
+    public void clearReviews() {
+        reviewComments.clear();
+    }
+
+    public InvertedIndex.SearchResult searchMovies(String query, int page, int size) {
+        return movieTitles.search(query, offset(page, size), size);
+    }
+
+    public InvertedIndex.SearchResult searchReviews(String query, int page, int size) {
+        return reviewComments.search(query, offset(page, size), size);
+    }
+
+    // page * size kann int überlaufen; ein so grosser Offset liefert ohnehin eine leere Seite
+    static int offset(int page, int size) {
+        return (int) Math.min((long) Math.max(page, 0) * Math.max(size, 0), Integer.MAX_VALUE);
+    }
+}
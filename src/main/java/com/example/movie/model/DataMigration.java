@@ -0,0 +1,45 @@
+package com.example.movie.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Markiert eine einmalige Datenmigration als erledigt, damit sie nicht bei jedem Start erneut über alle Zeilen läuft.
+ * Wird die Zeile gelöscht, läuft die Migration beim nächsten Start noch einmal.
+ */
+@Entity
+@Table(name = "data_migration")
+public class DataMigration {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "completed_at", nullable = false)
+    private Instant completedAt;
+
+    public DataMigration() {
+    }
+
+    public DataMigration(String name) {
+        this.name = name;
+        this.completedAt = Instant.now();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+}
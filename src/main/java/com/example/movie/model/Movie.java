@@ -2,47 +2,101 @@ package com.example.movie.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
 
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id")
 @Entity
+@Table(name = "movie", uniqueConstraints = @UniqueConstraint(name = "uk_movie_title_release_date",
+        columnNames = {"title", "release_date"}))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class Movie {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_seq")
+    @SequenceGenerator(name = "movie_seq", sequenceName = "movie_seq", allocationSize = 50)
     private long id;
 
+    @Version
+    @JsonIgnore
+    private long version;
+
     @Size(min = 2, max = 100, message = "Der Titel muss zwischen 2 und 100 Zeichen lang sein")
     private String title;
 
+    @Size(max = 255, message = "Das Genre darf höchstens 255 Zeichen lang sein")
+    @Column(length = 255)
     private String genre;
 
     @PastOrPresent(message = "Das Veröffentlichungsdatum darf nicht in der Zukunft liegen")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @Column(name = "release_date")
     private LocalDate releaseDate;
 
     @Min(value = 0, message = "Die Altersfreigabe darf nicht negativ sein")
     private int ageRating;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private double averageRating;
 
+    @JsonIgnore
+    private long ratingSum;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int reviewCount;
+
+    @Convert(converter = RatingHistogramConverter.class)
+    @Column(length = 120)
+    @JsonIgnore
+    private RatingHistogram ratingHistogram = RatingHistogram.empty();
+
     private boolean recommended;
 
+    // SHA-256 über die fachlichen Felder; Upserts überspringen Zeilen mit unverändertem Hash
+    @Column(length = 64)
+    @JsonIgnore
+    private String contentHash;
+
     @OneToMany(mappedBy = "movie", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonManagedReference
     private List<Review> reviews = new ArrayList<>();
 
+    // Jackson ruft setReviews nur auf, wenn der Payload "reviews" enthält; die leere Liste oben unterscheidet das nicht
+    @Transient
+    private boolean reviewsSet;
+
+    @ManyToMany
+    @JoinTable(name = "movie_genre",
+            joinColumns = @JoinColumn(name = "movie_id"),
+            inverseJoinColumns = @JoinColumn(name = "genre_id"),
+            indexes = @Index(name = "idx_movie_genre_genre", columnList = "genre_id, movie_id"))
+    @JsonIgnore
+    private Set<Genre> genres = new HashSet<>();
+
     public Movie() {
 
     }
@@ -55,6 +109,14 @@ public class Movie {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -95,6 +157,53 @@ public class Movie {
         this.averageRating = averageRating;
     }
 
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public RatingHistogram getRatingHistogram() {
+        return ratingHistogram == null ? RatingHistogram.empty() : ratingHistogram;
+    }
+
+    public void addRating(int rating) {
+        ratingHistogram = getRatingHistogram().withRating(rating);
+        ratingSum += rating;
+        reviewCount++;
+        updateAverageRating();
+    }
+
+    public void removeRating(int rating) {
+        if (reviewCount == 0) {
+            return;
+        }
+        ratingHistogram = getRatingHistogram().withoutRating(rating);
+        ratingSum -= rating;
+        reviewCount--;
+        updateAverageRating();
+    }
+
+    public void recalculateRatings() {
+        ratingSum = 0;
+        reviewCount = 0;
+        ratingHistogram = RatingHistogram.empty();
+        if (reviews != null) {
+            for (Review review : reviews) {
+                ratingSum += review.getRating();
+                reviewCount++;
+            }
+            ratingHistogram = RatingHistogram.fromReviews(reviews);
+        }
+        updateAverageRating();
+    }
+
+    private void updateAverageRating() {
+        averageRating = reviewCount == 0 ? 0.0 : (double) ratingSum / reviewCount;
+    }
+
     public boolean isRecommended() {
         return recommended;
     }
@@ -103,11 +212,49 @@ public class Movie {
         this.recommended = recommended;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void updateContentHash() {
+        contentHash = computeContentHash(title, genre, releaseDate, ageRating, recommended);
+    }
+
+    public static String computeContentHash(String title, String genre, LocalDate releaseDate, int ageRating,
+                                            boolean recommended) {
+        String content = String.join("\u001f", String.valueOf(title), String.valueOf(genre),
+                String.valueOf(releaseDate), Integer.toString(ageRating), Boolean.toString(recommended));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+
     public List<Review> getReviews() {
         return reviews;
     }
 
     public void setReviews(List<Review> reviews) {
         this.reviews = reviews;
+        this.reviewsSet = reviews != null;
+    }
+
+    /**
+     * @return ob die Reviews ausdrücklich gesetzt wurden, etwa weil ein PUT-Payload sie enthält
+     */
+    public boolean hasReviewsSet() {
+        return reviewsSet;
+    }
+
+    public Set<Genre> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(Set<Genre> genres) {
+        this.genres = genres;
     }
 }
@@ -0,0 +1,130 @@
+package com.example.movie.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// Unveränderliche Verteilung der Bewertungen 1..10 eines Films; jede Änderung liefert eine neue Instanz
+public final class RatingHistogram {
+
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 10;
+
+    private static final RatingHistogram EMPTY = new RatingHistogram(new int[MAX_RATING - MIN_RATING + 1]);
+
+    private final int[] counts;
+    private final int total;
+
+    private RatingHistogram(int[] counts) {
+        this.counts = counts;
+        this.total = Arrays.stream(counts).sum();
+    }
+
+    public static RatingHistogram empty() {
+        return EMPTY;
+    }
+
+    public static RatingHistogram of(int[] counts) {
+        if (counts.length != EMPTY.counts.length) {
+            throw new IllegalArgumentException("Histogramm benötigt " + EMPTY.counts.length + " Buckets, erhalten: " + counts.length);
+        }
+        for (int count : counts) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative Anzahl im Histogramm: " + count);
+            }
+        }
+        return new RatingHistogram(counts.clone());
+    }
+
+    public static RatingHistogram fromReviews(Collection<Review> reviews) {
+        int[] counts = new int[EMPTY.counts.length];
+        for (Review review : reviews) {
+            counts[bucket(review.getRating())]++;
+        }
+        return new RatingHistogram(counts);
+    }
+
+    public RatingHistogram withRating(int rating) {
+        int[] copy = counts.clone();
+        copy[bucket(rating)]++;
+        return new RatingHistogram(copy);
+    }
+
+    public RatingHistogram withoutRating(int rating) {
+        int index = bucket(rating);
+        if (counts[index] == 0) {
+            return this;
+        }
+        int[] copy = counts.clone();
+        copy[index]--;
+        return new RatingHistogram(copy);
+    }
+
+    public int count(int rating) {
+        return counts[bucket(rating)];
+    }
+
+    public int[] counts() {
+        return counts.clone();
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    // Nearest-Rank-Perzentil, p in (0, 100]
+    public int percentile(double p) {
+        if (p <= 0 || p > 100) {
+            throw new IllegalArgumentException("Perzentil muss zwischen 0 (exklusiv) und 100 liegen: " + p);
+        }
+        return ratingAtRank((int) Math.ceil(p / 100.0 * total));
+    }
+
+    public double median() {
+        if (total % 2 == 1) {
+            return ratingAtRank(total / 2 + 1);
+        }
+        return (ratingAtRank(total / 2) + ratingAtRank(total / 2 + 1)) / 2.0;
+    }
+
+    private int ratingAtRank(int rank) {
+        if (total == 0) {
+            throw new IllegalStateException("Histogramm ist leer");
+        }
+        int seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) {
+                return i + MIN_RATING;
+            }
+        }
+        return MAX_RATING;
+    }
+
+    private static int bucket(int rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Bewertung ausserhalb von " + MIN_RATING + ".." + MAX_RATING + ": " + rating);
+        }
+        return rating - MIN_RATING;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RatingHistogram other)) return false;
+        return Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(counts);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.movie.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+
+// Speichert das Histogramm kompakt als "n1,n2,...,n10" in einer Spalte der Movie-Tabelle
+@Converter
+public class RatingHistogramConverter implements AttributeConverter<RatingHistogram, String> {
+
+    @Override
+    public String convertToDatabaseColumn(RatingHistogram histogram) {
+        if (histogram == null || histogram.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int count : histogram.counts()) {
+            if (!sb.isEmpty()) {
+                sb.append(',');
+            }
+            sb.append(count);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public RatingHistogram convertToEntityAttribute(String column) {
+        if (column == null || column.isBlank()) {
+            return RatingHistogram.empty();
+        }
+        int[] counts = Arrays.stream(column.split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        return RatingHistogram.of(counts);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.movie.repository;
+
+import com.example.movie.model.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+}
@@ -0,0 +1,41 @@
+package com.example.movie.repository;
+
+import com.example.movie.model.Genre;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public class GenreInsertRepository {
+
+    private final EntityManager entityManager;
+
+    public GenreInsertRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Legt die Genres in der laufenden Transaktion an; Namen, die (auch parallel) schon angelegt wurden,
+     * überspringt der eindeutige Index {@code idx_genre_name}, statt die Transaktion abzubrechen.
+     */
+    public void insertIgnore(Collection<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("insert ignore into genre (id, name) values ");
+        for (int i = 0; i < names.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?)");
+        }
+        Query query = entityManager.createNativeQuery(sql.toString());
+        query.unwrap(NativeQuery.class).addSynchronizedQuerySpace("genre");
+        int position = 1;
+        for (String name : names) {
+            query.setParameter(position++, SequenceIds.next(entityManager, Genre.class));
+            query.setParameter(position++, name);
+        }
+        query.executeUpdate();
+    }
+}
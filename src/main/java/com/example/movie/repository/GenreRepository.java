@@ -0,0 +1,22 @@
+package com.example.movie.repository;
+
+import com.example.movie.model.Genre;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GenreRepository extends JpaRepository<Genre, Long> {
+    List<Genre> findByNameIn(Collection<String> names);
+
+    // Sperrende Abfrage liest den zuletzt committeten Stand, also auch Genres außerhalb des eigenen Snapshots
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select g from Genre g where g.name in :names")
+    List<Genre> findByNameInForShare(@Param("names") Collection<String> names);
+}
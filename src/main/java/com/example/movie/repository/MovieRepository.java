@@ -1,18 +1,118 @@
 package com.example.movie.repository;
 
+import com.example.movie.dto.MovieSummary;
+import com.example.movie.dto.MovieUpsertState;
+import com.example.movie.dto.MovieVersion;
 import com.example.movie.model.Movie;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MovieRepository extends JpaRepository<Movie, Long> {
 
+    // Listen-Abfragen laden die Reviews in derselben Abfrage mit, damit beim Serialisieren kein N+1 entsteht
+    @Override
+    @EntityGraph(attributePaths = "reviews")
+    List<Movie> findAll();
+
+    // Füllt den RecommendedMovieCache auf dem Primary; read-only, damit der Commit nichts auf Änderungen prüft
+    @EntityGraph(attributePaths = "reviews")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Movie> findByRecommended(boolean recommended);
 
-    List<Movie> findByGenreContainingIgnoreCase(String genre);
+    // Projektionen für ?view=summary: nur die benötigten Spalten, keine Reviews und kein Dirty-Tracking
+    @Query("select new com.example.movie.dto.MovieSummary(m.id, m.title, m.genre, m.averageRating, m.recommended, m.reviewCount) "
+            + "from Movie m order by m.id")
+    List<MovieSummary> findAllSummaries();
+
+    @Query("select new com.example.movie.dto.MovieSummary(m.id, m.title, m.genre, m.averageRating, m.recommended, m.reviewCount) "
+            + "from Movie m where m.recommended = :recommended order by m.id")
+    List<MovieSummary> findSummariesByRecommended(@Param("recommended") boolean recommended);
+
+    @Query("select new com.example.movie.dto.MovieSummary(m.id, m.title, m.genre, m.averageRating, m.recommended, m.reviewCount) "
+            + "from Movie m where exists (select g from m.genres g where g.name like :prefix escape '!') order by m.id")
+    List<MovieSummary> findSummariesByGenreNamePrefix(@Param("prefix") String prefix);
+
+    @Query("select new com.example.movie.dto.MovieSummary(m.id, m.title, m.genre, m.averageRating, m.recommended, m.reviewCount) "
+            + "from Movie m where m.id > :afterId order by m.id")
+    List<MovieSummary> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    List<Movie> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    // Export in ID-Bereichen: erst die IDs eines Blocks, dann der Block samt Reviews in einer Abfrage
+    @Query("select m.id from Movie m where m.id > :afterId order by m.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select distinct m from Movie m left join fetch m.reviews where m.id between :fromId and :toId order by m.id")
+    List<Movie> findWithReviewsByIdBetween(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("select distinct m from Movie m join m.genres g left join fetch m.reviews where g.name like :prefix escape '!'")
+    List<Movie> findByGenreNamePrefix(@Param("prefix") String prefix);
+
+    @Query("select m from Movie m where m.id > :afterId and m.genre is not null and m.genres is empty order by m.id")
+    List<Movie> findWithoutGenresAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Filme aus der Zeit vor den serverseitig gepflegten Bewertungszählern bzw. dem Histogramm (leer = NULL);
+    // gesperrt, damit parallele Reviews warten
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Movie m where m.id > :afterId "
+            + "and (m.reviewCount <> (select count(r) from Review r where r.movie = m) "
+            + "or m.ratingSum <> (select coalesce(sum(r.rating), 0) from Review r where r.movie = m) "
+            + "or (m.reviewCount = 0 and m.averageRating <> 0) "
+            + "or (m.reviewCount > 0 and m.ratingHistogram is null)) order by m.id")
+    List<Movie> findWithStaleRatingStatisticsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select m.id from Movie m where m.releaseDate < :date order by m.id")
+    List<Long> findIdsByReleaseDateBefore(@Param("date") LocalDate date, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Movie m where m.id in :ids")
+    int bulkDeleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Movie m where m.id = :id")
+    Optional<Movie> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Movie m where m.id in :ids order by m.id")
+    List<Movie> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Für bedingte GETs: liest nur Versionsspalten, ohne Film oder Reviews zu laden
+    @Query("select new com.example.movie.dto.MovieVersion(m.version, "
+            + "(select count(r) + coalesce(sum(r.version), 0) from Review r where r.movie = m)) "
+            + "from Movie m where m.id = :id")
+    Optional<MovieVersion> findVersionById(@Param("id") Long id);
+
+    // Kandidaten für den Upsert ohne Entitäten zu laden; das Veröffentlichungsdatum wird im Speicher abgeglichen
+    @Query("select new com.example.movie.dto.MovieUpsertState(m.id, m.title, m.releaseDate, m.genre, m.contentHash, "
+            + "m.recommended) from Movie m where m.title in :titles")
+    List<MovieUpsertState> findUpsertStatesByTitleIn(@Param("titles") Collection<String> titles);
+
+    @Query("select m.id from Movie m where m.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Vergleicht nach der Kollation der Datenbank, also wie der Unique-Index (title, release_date)
+    @Query("select m.id from Movie m where m.title = :title and m.releaseDate = :releaseDate")
+    Optional<Long> findIdByTitleAndReleaseDate(@Param("title") String title, @Param("releaseDate") LocalDate releaseDate);
 
-    void deleteByReleaseDateBefore(LocalDate date);
+    @Modifying
+    @Query("update Movie m set m.ratingSum = 0, m.reviewCount = 0, m.averageRating = 0, m.ratingHistogram = null, "
+            + "m.version = m.version + 1")
+    void resetRatingStatistics();
 }
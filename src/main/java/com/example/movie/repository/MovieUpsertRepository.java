@@ -0,0 +1,100 @@
+package com.example.movie.repository;
+
+import com.example.movie.model.Movie;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-basierte Statements für den Upsert: ein {@code INSERT ... ON DUPLICATE KEY UPDATE} pro Block statt
+ * geladener und per Dirty Checking geschriebener Entitäten. Die Statements sind mit ihren Tabellen
+ * synchronisiert, damit Hibernate nur die betroffenen Cache-Regionen verwirft.
+ */
+@Repository
+public class MovieUpsertRepository {
+
+    private final EntityManager entityManager;
+
+    public MovieUpsertRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public long nextId() {
+        return SequenceIds.next(entityManager, Movie.class);
+    }
+
+    /**
+     * Fügt die Filme ein oder aktualisiert Titel, Genre, Altersfreigabe, Empfehlung und Inhalts-Hash der Zeile mit
+     * gleicher ID bzw. gleichem (Titel, Veröffentlichungsdatum). Der Titel wird mitgeschrieben, weil der Schlüssel
+     * nach der Kollation auch bei anderer Schreibweise passt und der Inhalts-Hash sonst nicht zur Zeile gehört.
+     * Aktualisierte Zeilen erhalten eine neue Version, Bewertungszähler bleiben unberührt.
+     */
+    public void upsert(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder("insert into movie (id, version, title, genre, release_date, age_rating, "
+                + "recommended, content_hash, average_rating, rating_sum, review_count) values ");
+        for (int i = 0; i < movies.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, 0, ?, ?, ?, ?, ?, ?, 0, 0, 0)");
+        }
+        sql.append(" on duplicate key update version = version + 1, title = values(title), genre = values(genre), "
+                + "age_rating = values(age_rating), recommended = values(recommended), "
+                + "content_hash = values(content_hash)");
+
+        Query query = nativeQuery(sql.toString(), "movie");
+        int position = 1;
+        for (Movie movie : movies) {
+            query.setParameter(position++, movie.getId());
+            query.setParameter(position++, movie.getTitle());
+            query.setParameter(position++, movie.getGenre());
+            query.setParameter(position++, movie.getReleaseDate());
+            query.setParameter(position++, movie.getAgeRating());
+            query.setParameter(position++, movie.isRecommended());
+            query.setParameter(position++, Movie.computeContentHash(movie.getTitle(), movie.getGenre(),
+                    movie.getReleaseDate(), movie.getAgeRating(), movie.isRecommended()));
+        }
+        query.executeUpdate();
+    }
+
+    // Ersetzt die movie_genre-Zeilen der angegebenen Filme durch die übergebenen Genre-IDs
+    public void replaceGenres(Map<Long, ? extends Collection<Long>> genreIdsByMovieId) {
+        if (genreIdsByMovieId.isEmpty()) {
+            return;
+        }
+        nativeQuery("delete from movie_genre where movie_id in (:movieIds)", "movie_genre")
+                .setParameter("movieIds", genreIdsByMovieId.keySet())
+                .executeUpdate();
+
+        StringBuilder sql = new StringBuilder("insert into movie_genre (movie_id, genre_id) values ");
+        int rows = 0;
+        for (Collection<Long> genreIds : genreIdsByMovieId.values()) {
+            for (int i = 0; i < genreIds.size(); i++) {
+                sql.append(rows++ == 0 ? "" : ", ").append("(?, ?)");
+            }
+        }
+        if (rows == 0) {
+            return;
+        }
+        Query insert = nativeQuery(sql.toString(), "movie_genre");
+        int position = 1;
+        for (Map.Entry<Long, ? extends Collection<Long>> entry : genreIdsByMovieId.entrySet()) {
+            for (Long genreId : entry.getValue()) {
+                insert.setParameter(position++, entry.getKey());
+                insert.setParameter(position++, genreId);
+            }
+        }
+        insert.executeUpdate();
+    }
+
+    private Query nativeQuery(String sql, String table) {
+        Query query = entityManager.createNativeQuery(sql);
+        query.unwrap(NativeQuery.class).addSynchronizedQuerySpace(table);
+        return query;
+    }
+}
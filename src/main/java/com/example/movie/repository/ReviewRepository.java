@@ -1,12 +1,26 @@
 package com.example.movie.repository;
 
 import com.example.movie.model.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByMovieId(Long movieId);
+
+    List<Review> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select r.id from Review r where r.movie.id in :movieIds")
+    List<Long> findIdsByMovieIdIn(@Param("movieIds") Collection<Long> movieIds);
+
+    @Modifying
+    @Query("delete from Review r where r.movie.id in :movieIds")
+    int bulkDeleteByMovieIdIn(@Param("movieIds") Collection<Long> movieIds);
 }
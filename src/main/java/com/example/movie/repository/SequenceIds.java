@@ -0,0 +1,21 @@
+package com.example.movie.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+// IDs aus derselben gepoolten Sequenz wie persist(), damit sich native Inserts und Entitäten nicht überschneiden
+final class SequenceIds {
+
+    private SequenceIds() {
+    }
+
+    static long next(EntityManager entityManager, Class<?> entityClass) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entityClass).getGenerator();
+        Object id = generator.generate(session, null, null, EventType.INSERT);
+        return ((Number) id).longValue();
+    }
+}
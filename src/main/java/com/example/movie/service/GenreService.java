@@ -0,0 +1,151 @@
+package com.example.movie.service;
+
+import com.example.movie.model.Genre;
+import com.example.movie.model.Movie;
+import com.example.movie.repository.GenreInsertRepository;
+import com.example.movie.repository.GenreRepository;
+import com.example.movie.repository.MovieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Service
+public class GenreService {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[,/|;]");
+    private static final int BACKFILL_CHUNK_SIZE = 200;
+
+    private final Logger logger = LoggerFactory.getLogger(GenreService.class);
+    private final GenreRepository genreRepository;
+    private final MovieRepository movieRepository;
+    private final GenreInsertRepository genreInsertRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public GenreService(GenreRepository genreRepository, MovieRepository movieRepository,
+                        GenreInsertRepository genreInsertRepository, TransactionTemplate transactionTemplate) {
+        this.genreRepository = genreRepository;
+        this.movieRepository = movieRepository;
+        this.genreInsertRepository = genreInsertRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public static String normalizeName(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // "Action, Sci-Fi" -> [action, sci-fi]
+    public static Set<String> splitGenres(String genre) {
+        if (genre == null) {
+            return Collections.emptySet();
+        }
+        return SEPARATOR.splitAsStream(genre)
+                .map(GenreService::normalizeName)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    // LIKE-Muster für eine Präfixsuche, die den Index auf genre.name nutzen kann
+    public static String toPrefixPattern(String query) {
+        String escaped = normalizeName(query)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return escaped + "%";
+    }
+
+    /**
+     * Löst die Genres aller Filme mit einer Abfrage auf und legt fehlende an. Die Genre-Menge eines Films
+     * wird nur angepasst, wenn sich ihre Namen ändern, damit unveränderte movie_genre-Zeilen stehen bleiben.
+     */
+    public void assignGenres(List<Movie> movies) {
+        Map<Movie, Set<String>> changed = new LinkedHashMap<>();
+        for (Movie movie : movies) {
+            Set<String> requested = splitGenres(movie.getGenre());
+            if (movie.getGenres() == null || !genreNames(movie.getGenres()).equals(requested)) {
+                changed.put(movie, requested);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Set<String> names = new HashSet<>();
+        changed.values().forEach(names::addAll);
+        Map<String, Genre> genres = resolveGenres(names);
+
+        changed.forEach((movie, requested) -> {
+            Set<Genre> movieGenres = new HashSet<>();
+            for (String name : requested) {
+                movieGenres.add(genres.get(name));
+            }
+            if (movie.getGenres() == null) {
+                movie.setGenres(movieGenres);
+            } else {
+                movie.getGenres().retainAll(movieGenres);
+                movie.getGenres().addAll(movieGenres);
+            }
+        });
+    }
+
+    private static Set<String> genreNames(Set<Genre> genres) {
+        return genres.stream().map(Genre::getName).collect(Collectors.toSet());
+    }
+
+    /**
+     * @return die Genres zu den normalisierten Namen; fehlende werden in der laufenden Transaktion angelegt
+     */
+    public Map<String, Genre> resolveGenres(Collection<String> names) {
+        Map<String, Genre> genres = new HashMap<>();
+        if (!names.isEmpty()) {
+            genreRepository.findByNameIn(names).forEach(genre -> genres.put(genre.getName(), genre));
+            Set<String> missing = names.stream()
+                    .filter(name -> !genres.containsKey(name))
+                    .collect(Collectors.toSet());
+            if (!missing.isEmpty()) {
+                genres.putAll(createGenres(missing));
+            }
+        }
+        return genres;
+    }
+
+    /**
+     * Legt Genres ohne eigene Transaktion (und damit ohne zweite Pool-Verbindung) an. Legt ein paralleler
+     * Request dasselbe Genre gleichzeitig an, überspringt der Insert es; die anschließende sperrende Abfrage
+     * sieht auch dieses, obwohl es nach dem Snapshot der Transaktion committet wurde.
+     */
+    private Map<String, Genre> createGenres(Set<String> names) {
+        logger.info("Lege neue Genres an: {}", names);
+        genreInsertRepository.insertIgnore(names);
+        Map<String, Genre> found = new HashMap<>();
+        genreRepository.findByNameInForShare(names).forEach(genre -> found.put(genre.getName(), genre));
+        return found;
+    }
+
+    // Befüllt die Genre-Tabelle für Filme, die vor der Normalisierung angelegt wurden
+    public void backfillGenres() {
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            long lastId = afterId;
+            List<Long> processed = transactionTemplate.execute(status -> {
+                List<Movie> movies = movieRepository.findWithoutGenresAfter(lastId, PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+                assignGenres(movies);
+                return movies.stream().map(Movie::getId).toList();
+            });
+            if (processed == null || processed.isEmpty()) {
+                break;
+            }
+            total += processed.size();
+            afterId = processed.get(processed.size() - 1);
+        }
+        if (total > 0) {
+            logger.info("Genres für bestehende Filme nachgetragen: Anzahl={}", total);
+        }
+    }
+}
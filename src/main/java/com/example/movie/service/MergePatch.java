@@ -0,0 +1,60 @@
+package com.example.movie.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Wendet einen JSON Merge Patch (RFC 7396) auf eine geladene Entität an. Nur freigegebene Felder dürfen
+ * im Patch vorkommen, und nur diese werden validiert; alle anderen Spalten bleiben unberührt, sodass
+ * Hibernate mit {@code @DynamicUpdate} ausschließlich die geänderten Spalten schreibt.
+ */
+final class MergePatch {
+
+    private MergePatch() {
+    }
+
+    /**
+     * @param patchable    Felder, die per PATCH geändert werden dürfen
+     * @param nonNullable  Felder, die nicht per {@code null} entfernt werden können (primitive Typen)
+     * @return die im Patch enthaltenen Felder
+     */
+    static Set<String> apply(ObjectMapper objectMapper, Validator validator, Object target, JsonNode patch,
+                             Set<String> patchable, Set<String> nonNullable) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Merge Patch muss ein JSON-Objekt sein");
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        patch.fieldNames().forEachRemaining(fields::add);
+        for (String field : fields) {
+            if (!patchable.contains(field)) {
+                throw new IllegalArgumentException("Feld " + field + " kann nicht per PATCH geändert werden");
+            }
+            if (patch.get(field).isNull() && nonNullable.contains(field)) {
+                throw new IllegalArgumentException("Feld " + field + " kann nicht entfernt werden");
+            }
+        }
+
+        try {
+            objectMapper.readerForUpdating(target).readValue(patch);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ungültiger Merge Patch: " + e.getMessage(), e);
+        }
+
+        StringBuilder errors = new StringBuilder();
+        for (String field : fields) {
+            for (ConstraintViolation<Object> violation : validator.validateProperty(target, field)) {
+                errors.append(" ").append(field).append(" ").append(violation.getMessage()).append(";");
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Validation Fehler:" + errors);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.movie.service;
+
+import com.example.movie.index.MovieRankingIndex;
+import com.example.movie.model.Movie;
+import com.example.movie.repository.MovieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+public class MovieRankingService {
+
+    // Jeder Film startet mit 5 "virtuellen" Bewertungen zum globalen Mittelwert
+    static final int MIN_VOTES = 5;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(MovieRankingService.class);
+    private final MovieRankingIndex index = new MovieRankingIndex(MIN_VOTES);
+    private final MovieRepository movieRepository;
+
+    public MovieRankingService(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    public void rebuild() {
+        index.reset();
+
+        List<MovieRankingIndex.MovieStats> stats = new ArrayList<>();
+        long afterId = 0;
+        List<Movie> movies;
+        do {
+            movies = movieRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (Movie movie : movies) {
+                stats.add(toStats(movie));
+                afterId = movie.getId();
+            }
+        } while (movies.size() == REBUILD_PAGE_SIZE);
+        index.putAll(stats);
+
+        logger.info("Rangliste aufgebaut: {} bewertete Filme", index.size());
+    }
+
+    public List<MovieRankingIndex.RankedMovie> top(String genre, int limit) {
+        if (genre == null || genre.isBlank()) {
+            return index.top(limit);
+        }
+        return index.top(GenreService.normalizeName(genre), limit);
+    }
+
+    public void update(Movie movie) {
+        index.put(toStats(movie));
+    }
+
+    public void remove(long movieId) {
+        index.remove(movieId);
+    }
+
+    public void removeAll(Collection<Long> movieIds) {
+        index.removeAll(movieIds);
+    }
+
+    public void resetRatings() {
+        index.resetRatings();
+    }
+
+    public void clear() {
+        index.clear();
+    }
+
+    private static MovieRankingIndex.MovieStats toStats(Movie movie) {
+        return new MovieRankingIndex.MovieStats(movie.getId(), movie.getVersion(), movie.getTitle(), movie.getGenre(),
+                GenreService.splitGenres(movie.getGenre()), movie.getRatingSum(), movie.getReviewCount());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.movie.service;
+
+import com.example.movie.dto.MovieVersion;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bereits serialisierte Antworten von GET /api/movies/{id} für häufig gelesene Filme, als JSON und ab
+ * {@link #MIN_GZIP_BYTES} zusätzlich gzip-komprimiert. Einträge gelten nur für die {@link MovieVersion},
+ * mit der sie abgelegt wurden; Schreibzugriffe entfernen sie zusätzlich nach dem Commit.
+ */
+@Component
+public class MovieResponseCache {
+
+    static final int MAX_ENTRIES = 1_000;
+    static final int MIN_GZIP_BYTES = 1_024;
+
+    public record Entry(MovieVersion version, byte[] json, byte[] gzip) {
+
+        public static Entry of(MovieVersion version, byte[] json) {
+            return new Entry(version, json, json.length >= MIN_GZIP_BYTES ? gzip(json) : null);
+        }
+
+        private static byte[] gzip(byte[] json) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    // LRU nach Zugriffsreihenfolge; die häufig gelesenen Filme bleiben im Cache
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * @return der Eintrag, falls er für genau diese Version abgelegt wurde, sonst {@code null}
+     */
+    public synchronized Entry get(long movieId, MovieVersion version) {
+        Entry entry = entries.get(movieId);
+        return entry != null && entry.version().equals(version) ? entry : null;
+    }
+
+    public synchronized void put(long movieId, Entry entry) {
+        entries.put(movieId, entry);
+    }
+
+    public synchronized void evict(long movieId) {
+        entries.remove(movieId);
+    }
+
+    public synchronized void evictAll(Collection<Long> movieIds) {
+        entries.keySet().removeAll(movieIds);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -1,54 +1,276 @@
 package com.example.movie.service;
 
+import com.example.movie.dto.MovieCursorPage;
+import com.example.movie.dto.MovieSummary;
+import com.example.movie.dto.MovieUpsertState;
+import com.example.movie.dto.MovieVersion;
+import com.example.movie.dto.PatchedMovie;
+import com.example.movie.dto.RatingDistribution;
+import com.example.movie.dto.UpsertResult;
+import com.example.movie.exception.MovieNotFoundException;
+import com.example.movie.exception.PreconditionFailedException;
+import com.example.movie.index.InvertedIndex;
+import com.example.movie.index.MovieRankingIndex;
+import com.example.movie.index.SearchIndexService;
+import com.example.movie.model.DataMigration;
+import com.example.movie.model.Genre;
 import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.example.movie.repository.DataMigrationRepository;
 import com.example.movie.repository.MovieRepository;
+import com.example.movie.repository.MovieUpsertRepository;
+import com.example.movie.repository.ReviewRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
 @Service
 public class MovieService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DELETE_CHUNK_SIZE = 500;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int UPSERT_CHUNK_SIZE = 500;
+    private static final int BACKFILL_CHUNK_SIZE = 200;
+    static final String RATING_STATISTICS_BACKFILL = "rating-statistics-backfill";
+    private static final Set<String> PATCHABLE_FIELDS =
+            Set.of("title", "genre", "releaseDate", "ageRating", "recommended");
+    private static final Set<String> NON_NULLABLE_FIELDS = Set.of("ageRating", "recommended");
+
     private final Logger logger = LoggerFactory.getLogger(MovieService.class);
     private final MovieRepository movieRepository;
+    private final MovieUpsertRepository movieUpsertRepository;
+    private final ReviewRepository reviewRepository;
     private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final GenreService genreService;
+    private final SearchIndexService searchIndex;
+    private final RecommendedMovieCache recommendedMovieCache;
+    private final MovieRankingService movieRanking;
+    private final ObjectMapper objectMapper;
+    private final MovieResponseCache movieResponseCache;
+    private final DataMigrationRepository dataMigrationRepository;
 
-    public MovieService(MovieRepository movieRepository, Validator validator) {
+    public MovieService(MovieRepository movieRepository, MovieUpsertRepository movieUpsertRepository,
+                        ReviewRepository reviewRepository, Validator validator,
+                        EntityManager entityManager, TransactionTemplate transactionTemplate,
+                        GenreService genreService, SearchIndexService searchIndex,
+                        RecommendedMovieCache recommendedMovieCache, MovieRankingService movieRanking,
+                        ObjectMapper objectMapper, MovieResponseCache movieResponseCache,
+                        DataMigrationRepository dataMigrationRepository) {
         this.movieRepository = movieRepository;
+        this.movieUpsertRepository = movieUpsertRepository;
+        this.reviewRepository = reviewRepository;
         this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.genreService = genreService;
+        this.searchIndex = searchIndex;
+        this.recommendedMovieCache = recommendedMovieCache;
+        this.movieRanking = movieRanking;
+        this.objectMapper = objectMapper;
+        this.movieResponseCache = movieResponseCache;
+        this.dataMigrationRepository = dataMigrationRepository;
     }
 
+    @Transactional(readOnly = true)
     public List<Movie> getAllMovies() {
         logger.info("Lese alle Filme");
         return movieRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<MovieSummary> getAllMovieSummaries() {
+        logger.info("Lese alle Filme als Zusammenfassung");
+        return movieRepository.findAllSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public MovieCursorPage<Movie> getMoviesAfter(String cursor, int limit) {
+        long afterId = decodeCursor(cursor);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        logger.info("Lese Filme nach Cursor: afterId={}, limit={}", afterId, pageSize);
+
+        // Eine Zeile mehr laden, um ohne COUNT-Abfrage zu wissen, ob eine weitere Seite existiert
+        List<Movie> movies = movieRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        MovieCursorPage<Movie> page = toCursorPage(movies, pageSize, Movie::getId);
+        initializeReviews(page.items());
+        return page;
+    }
+
+    @Transactional(readOnly = true)
+    public MovieCursorPage<MovieSummary> getMovieSummariesAfter(String cursor, int limit) {
+        long afterId = decodeCursor(cursor);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        logger.info("Lese Filme als Zusammenfassung nach Cursor: afterId={}, limit={}", afterId, pageSize);
+
+        List<MovieSummary> summaries = movieRepository.findSummariesAfter(afterId, PageRequest.of(0, pageSize + 1));
+        return toCursorPage(summaries, pageSize, MovieSummary::id);
+    }
+
+    private static <T> MovieCursorPage<T> toCursorPage(List<T> rows, int pageSize, ToLongFunction<T> id) {
+        if (rows.size() <= pageSize) {
+            return new MovieCursorPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, pageSize);
+        return new MovieCursorPage<>(page, encodeCursor(id.applyAsLong(page.get(pageSize - 1))));
+    }
+
+    // Lädt die Reviews gebündelt (hibernate.default_batch_fetch_size) statt einzeln pro Film beim Serialisieren
+    private void initializeReviews(List<Movie> movies) {
+        movies.forEach(movie -> Hibernate.initialize(movie.getReviews()));
+    }
+
+    static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(decoded);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ungültiger Cursor: " + cursor);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportMovies(Consumer<Movie> consumer) {
+        logger.info("Exportiere alle Filme als Stream");
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = movieRepository.findIdsAfter(afterId, PageRequest.of(0, EXPORT_CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                return;
+            }
+            afterId = ids.get(ids.size() - 1);
+            movieRepository.findWithReviewsByIdBetween(ids.get(0), afterId).forEach(consumer);
+            // Block samt Reviews aus dem Persistence Context lösen, damit der Heap konstant bleibt
+            entityManager.clear();
+            if (ids.size() < EXPORT_CHUNK_SIZE) {
+                return;
+            }
+        }
+    }
+
+    // findById und die Reviews-Collection kommen aus dem Second-Level-Cache; nur ein Fehlzugriff fragt die DB
+    @Transactional(readOnly = true)
     public Optional<Movie> getMovieById(Long id) {
         logger.info("Lese Film mit ID: {}", id);
-        return movieRepository.findById(id);
+        Optional<Movie> movie = movieRepository.findById(id);
+        movie.ifPresent(m -> Hibernate.initialize(m.getReviews()));
+        return movie;
     }
 
+    @Transactional(readOnly = true)
+    public Optional<RatingDistribution> getRatingDistribution(Long id) {
+        logger.info("Lese Bewertungsverteilung für Film mit ID: {}", id);
+        return movieRepository.findById(id)
+                // Fehlende Histogramme älterer Filme trägt backfillRatingStatistics beim ersten Start nach
+                .map(movie -> RatingDistribution.of(movie.getId(), movie.getAverageRating(), movie.getRatingHistogram()));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<MovieVersion> getMovieVersion(Long id) {
+        return movieRepository.findVersionById(id);
+    }
+
+    @Transactional(readOnly = true)
     public boolean existsById(Long id) {
         logger.info("Prüfe Existenz Film mit ID: {}", id);
         return movieRepository.existsById(id);
     }
 
+    /**
+     * Nicht transaktional: ein Cache-Treffer belegt keine DB-Verbindung. Das Nachladen läuft bewusst in einer
+     * schreibenden Transaktion und damit auf dem Primary: der Cache hat keine TTL, ein vom nachhinkenden Replikat
+     * gelesener Stand bliebe nach dem Verwerfen durch einen Schreibzugriff bis zum nächsten Schreibzugriff stehen.
+     */
     public List<Movie> getMoviesByRecommended(boolean recommended) {
         logger.info("Lese Filme mit recommended={}", recommended);
-        return movieRepository.findByRecommended(recommended);
+        return recommendedMovieCache.get(recommended,
+                () -> transactionTemplate.execute(status -> movieRepository.findByRecommended(recommended)));
     }
 
+    @Transactional(readOnly = true)
     public List<Movie> getMoviesByGenre(String genre) {
-        logger.info("Lese Filme mit Genre enthält: {}", genre);
-        return movieRepository.findByGenreContainingIgnoreCase(genre);
+        logger.info("Lese Filme mit Genre beginnt mit: {}", genre);
+        return movieRepository.findByGenreNamePrefix(GenreService.toPrefixPattern(genre));
+    }
+
+    @Transactional(readOnly = true)
+    public List<MovieSummary> getMovieSummariesByRecommended(boolean recommended) {
+        logger.info("Lese Filme als Zusammenfassung mit recommended={}", recommended);
+        return movieRepository.findSummariesByRecommended(recommended);
+    }
+
+    @Transactional(readOnly = true)
+    public List<MovieSummary> getMovieSummariesByGenre(String genre) {
+        logger.info("Lese Filme als Zusammenfassung mit Genre beginnt mit: {}", genre);
+        return movieRepository.findSummariesByGenreNamePrefix(GenreService.toPrefixPattern(genre));
+    }
+
+    public List<MovieRankingIndex.RankedMovie> getTopMovies(String genre, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        logger.info("Lese Top-{} Filme nach gewichteter Bewertung, Genre: {}", size, genre);
+        return movieRanking.top(genre, size);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Movie> searchMovies(String query, int page, int size) {
+        logger.info("Suche Filme nach Titel: {} (Seite {}, Grösse {})", query, page, size);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        InvertedIndex.SearchResult result = searchIndex.searchMovies(query, Math.max(page, 0), pageSize);
+        List<Long> ids = result.hits().stream().map(InvertedIndex.Hit::id).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Treffer per Primärschlüssel nachladen und in Ranking-Reihenfolge bringen
+        Map<Long, Movie> movies = movieRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        List<Movie> ranked = ids.stream().map(movies::get).filter(Objects::nonNull).toList();
+        initializeReviews(ranked);
+        return ranked;
+    }
+
+    private void indexMovieWithReviews(Movie movie) {
+        searchIndex.indexMovie(movie);
+        if (movie.getReviews() != null) {
+            movie.getReviews().forEach(searchIndex::indexReview);
+        }
     }
 
     private void validateMovie(Movie movie) {
@@ -62,55 +284,411 @@ public class MovieService {
         }
     }
 
+    @Transactional
     public Movie createMovie(Movie movie) {
         logger.info("Erstelle neuen Film: {}", movie.getTitle());
         validateMovie(movie);
-        return movieRepository.save(movie);
+        movie.recalculateRatings();
+        genreService.assignGenres(List.of(movie));
+        Movie saved = movieRepository.save(movie);
+        AfterCommit.run(() -> {
+            indexMovieWithReviews(saved);
+            recommendedMovieCache.evict(saved.isRecommended());
+            movieRanking.update(saved);
+        });
+        return saved;
     }
 
+    @Transactional
     public List<Movie> createMovies(List<Movie> movies) {
         logger.info("Erstelle mehrere Filme: Anzahl={}", movies.size());
         for (Movie movie : movies) {
             validateMovie(movie);
+            movie.recalculateRatings();
+        }
+        genreService.assignGenres(movies);
+        List<Movie> saved = movieRepository.saveAll(movies);
+        AfterCommit.run(() -> {
+            saved.forEach(this::indexMovieWithReviews);
+            saved.stream().map(Movie::isRecommended).distinct().forEach(recommendedMovieCache::evict);
+            saved.forEach(movieRanking::update);
+        });
+        return saved;
+    }
+
+    /**
+     * Legt Filme an oder aktualisiert sie anhand von (Titel, Veröffentlichungsdatum). Pro Block liest eine
+     * Projektion den gespeicherten Stand; Zeilen mit unverändertem Inhalts-Hash werden übersprungen, der Rest
+     * mit einem einzigen {@code INSERT ... ON DUPLICATE KEY UPDATE} geschrieben. Legt eine parallele Anfrage
+     * denselben Schlüssel an oder gilt er nur nach der Kollation der Datenbank als gleich, aktualisiert das
+     * Statement die bestehende Zeile statt einzufügen; deren ID wird danach nachgelesen. Reviews im Payload
+     * werden ignoriert.
+     */
+    public UpsertResult upsertMovies(List<Movie> movies) {
+        logger.info("Upsert von Filmen: Anzahl={}", movies.size());
+        // Doppelte Schlüssel im Payload: der letzte Eintrag gewinnt
+        Map<MovieKey, Movie> byKey = new LinkedHashMap<>();
+        for (Movie movie : movies) {
+            validateMovie(movie);
+            if (movie.getTitle() == null || movie.getReleaseDate() == null) {
+                throw new IllegalArgumentException("Titel und Veröffentlichungsdatum sind für den Upsert erforderlich");
+            }
+            byKey.put(MovieKey.of(movie.getTitle(), movie.getReleaseDate()), movie);
+        }
+
+        List<Movie> distinct = new ArrayList<>(byKey.values());
+        UpsertResult result = new UpsertResult(0, 0, 0);
+        for (int from = 0; from < distinct.size(); from += UPSERT_CHUNK_SIZE) {
+            List<Movie> chunk = distinct.subList(from, Math.min(from + UPSERT_CHUNK_SIZE, distinct.size()));
+            result = result.plus(transactionTemplate.execute(status -> upsertChunk(chunk)));
+        }
+        logger.info("Upsert abgeschlossen: neu={}, geändert={}, unverändert={}",
+                result.inserted(), result.updated(), result.unchanged());
+        return result;
+    }
+
+    // Vergleicht Titel wie die _ci-Kollation von MySQL: ohne Groß-/Kleinschreibung und Leerzeichen am Ende
+    private record MovieKey(String title, LocalDate releaseDate) {
+        static MovieKey of(String title, LocalDate releaseDate) {
+            return new MovieKey(title.stripTrailing().toLowerCase(Locale.ROOT), releaseDate);
+        }
+    }
+
+    private UpsertResult upsertChunk(List<Movie> chunk) {
+        Set<String> titles = chunk.stream().map(Movie::getTitle).collect(Collectors.toSet());
+        Map<MovieKey, MovieUpsertState> existing = movieRepository.findUpsertStatesByTitleIn(titles).stream()
+                .collect(Collectors.toMap(state -> MovieKey.of(state.title(), state.releaseDate()),
+                        Function.identity(), (first, second) -> first));
+
+        List<Movie> rows = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        Map<Long, Set<String>> genreNamesByMovieId = new LinkedHashMap<>();
+        Set<Boolean> previousRecommended = new HashSet<>();
+        int unchanged = 0;
+        for (Movie incoming : chunk) {
+            MovieUpsertState state = existing.get(MovieKey.of(incoming.getTitle(), incoming.getReleaseDate()));
+            long id;
+            if (state == null) {
+                id = movieUpsertRepository.nextId();
+            } else if (Movie.computeContentHash(incoming.getTitle(), incoming.getGenre(), incoming.getReleaseDate(),
+                    incoming.getAgeRating(), incoming.isRecommended()).equals(state.contentHash())) {
+                unchanged++;
+                continue;
+            } else {
+                id = state.id();
+                updatedIds.add(id);
+                previousRecommended.add(state.recommended());
+            }
+            Set<String> genreNames = GenreService.splitGenres(incoming.getGenre());
+            if (state == null || !genreNames.equals(GenreService.splitGenres(state.genre()))) {
+                genreNamesByMovieId.put(id, genreNames);
+            }
+            Movie row = new Movie();
+            row.setId(id);
+            row.setTitle(incoming.getTitle());
+            row.setGenre(incoming.getGenre());
+            row.setReleaseDate(incoming.getReleaseDate());
+            row.setAgeRating(incoming.getAgeRating());
+            row.setRecommended(incoming.isRecommended());
+            rows.add(row);
+        }
+        if (rows.isEmpty()) {
+            return new UpsertResult(0, 0, unchanged);
+        }
+
+        movieUpsertRepository.upsert(rows);
+        int inserted = rows.size() - updatedIds.size();
+        // Neue IDs, die es danach nicht gibt: das Statement hat eine parallel angelegte oder nach der Kollation
+        // gleiche Zeile aktualisiert. Deren ID gilt ab hier, ihr bisheriger Empfehlungs-Status ist unbekannt.
+        Set<Long> newIds = rows.stream().map(Movie::getId).filter(id -> !updatedIds.contains(id))
+                .collect(Collectors.toSet());
+        if (!newIds.isEmpty()) {
+            newIds.removeAll(movieRepository.findIdsByIdIn(newIds));
+        }
+        for (Movie row : rows) {
+            if (!newIds.contains(row.getId())) {
+                continue;
+            }
+            long mergedId = movieRepository.findIdByTitleAndReleaseDate(row.getTitle(), row.getReleaseDate())
+                    .orElseThrow(() -> new IllegalStateException("Upsert-Zeile nicht gefunden: " + row.getTitle()));
+            Set<String> genreNames = genreNamesByMovieId.remove(row.getId());
+            if (genreNames != null) {
+                genreNamesByMovieId.put(mergedId, genreNames);
+            }
+            row.setId(mergedId);
+            updatedIds.add(mergedId);
+            previousRecommended.addAll(List.of(true, false));
+            inserted--;
         }
-        return movieRepository.saveAll(movies);
+        if (!genreNamesByMovieId.isEmpty()) {
+            Set<String> names = new HashSet<>();
+            genreNamesByMovieId.values().forEach(names::addAll);
+            Map<String, Genre> genres = genreService.resolveGenres(names);
+            Map<Long, List<Long>> genreIdsByMovieId = new LinkedHashMap<>();
+            genreNamesByMovieId.forEach((movieId, movieGenres) -> genreIdsByMovieId.put(movieId,
+                    movieGenres.stream().map(name -> genres.get(name).getId()).toList()));
+            movieUpsertRepository.replaceGenres(genreIdsByMovieId);
+        }
+
+        // Aktueller Stand samt Version und Bewertungszählern für Suchindex und Rangliste, in einer Abfrage
+        List<Movie> changed = movieRepository.findAllById(rows.stream().map(Movie::getId).toList());
+        AfterCommit.run(() -> {
+            changed.forEach(searchIndex::indexMovie);
+            previousRecommended.forEach(recommendedMovieCache::evict);
+            changed.stream().map(Movie::isRecommended).distinct().forEach(recommendedMovieCache::evict);
+            changed.forEach(movieRanking::update);
+            movieResponseCache.evictAll(updatedIds);
+        });
+        return new UpsertResult(inserted, updatedIds.size(), unchanged);
     }
 
+    @Transactional
     public Movie updateMovie(Long id, Movie updatedMovie) {
+        return updateMovie(id, updatedMovie, null);
+    }
+
+    /**
+     * @param expectedVersion Version aus dem If-Match-Header; weicht sie ab, wird nichts geändert. Enthält der
+     *                        Payload Reviews, muss auch der Review-Teil passen, sonst überschriebe der Client
+     *                        zwischenzeitlich geänderte Reviews mit seinem veralteten Stand
+     */
+    @Transactional
+    public Movie updateMovie(Long id, Movie updatedMovie, MovieVersion expectedVersion) {
         logger.info("Aktualisiere Film mit ID: {}", id);
         validateMovie(updatedMovie);
 
         return movieRepository.findById(id).map(movie -> {
+            if (expectedVersion != null && !matchesVersion(movie, expectedVersion, updatedMovie.hasReviewsSet())) {
+                throw new PreconditionFailedException("Movie", id);
+            }
+            boolean wasRecommended = movie.isRecommended();
             movie.setTitle(updatedMovie.getTitle());
             movie.setGenre(updatedMovie.getGenre());
             movie.setReleaseDate(updatedMovie.getReleaseDate());
             movie.setAgeRating(updatedMovie.getAgeRating());
-            movie.setAverageRating(updatedMovie.getAverageRating());
             movie.setRecommended(updatedMovie.isRecommended());
 
-            movie.getReviews().clear();
-            if (updatedMovie.getReviews() != null) {
-                updatedMovie.getReviews().forEach(review -> review.setMovie(movie));
-                movie.getReviews().addAll(updatedMovie.getReviews());
+            // Ohne Reviews im Payload bleiben die vorhandenen Reviews samt Bewertung unangetastet
+            ReviewChanges changes = !updatedMovie.hasReviewsSet()
+                    ? null
+                    : mergeReviews(movie, updatedMovie.getReviews());
+            if (changes != null && changes.hasChanges()) {
+                movie.recalculateRatings();
             }
+            genreService.assignGenres(List.of(movie));
 
-            return movieRepository.save(movie);
+            Movie saved = movieRepository.save(movie);
+            // Die Antwort enthält die Reviews; ohne Merge wurden sie noch nicht geladen
+            Hibernate.initialize(saved.getReviews());
+            AfterCommit.run(() -> {
+                searchIndex.indexMovie(saved);
+                if (changes != null) {
+                    searchIndex.removeReviews(changes.removedIds());
+                    // merge() ersetzt neue Reviews durch verwaltete Kopien, daher über den gespeicherten Film iterieren
+                    saved.getReviews().stream()
+                            .filter(review -> !changes.unchangedIds().contains(review.getId()))
+                            .forEach(searchIndex::indexReview);
+                }
+                recommendedMovieCache.evict(wasRecommended);
+                recommendedMovieCache.evict(saved.isRecommended());
+                movieRanking.update(saved);
+                movieResponseCache.evict(saved.getId());
+            });
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Film nicht gefunden mit ID " + id));
     }
 
+    private boolean matchesVersion(Movie movie, MovieVersion expected, boolean includeReviews) {
+        if (movie.getVersion() != expected.movie()) {
+            return false;
+        }
+        return !includeReviews || movieRepository.findVersionById(movie.getId())
+                .map(current -> current.reviews() == expected.reviews())
+                .orElse(false);
+    }
+
+    private record ReviewChanges(List<Long> removedIds, Set<Long> unchangedIds, int insertedOrUpdated) {
+
+        boolean hasChanges() {
+            return !removedIds.isEmpty() || insertedOrUpdated > 0;
+        }
+    }
+
+    /**
+     * Gleicht die Reviews des Payloads per ID mit den vorhandenen ab, sodass nur neue, geänderte und
+     * entfernte Reviews Schreibzugriffe erzeugen. IDs, die nicht zu diesem Film gehören, werden als
+     * neue Reviews angelegt.
+     */
+    private ReviewChanges mergeReviews(Movie movie, List<Review> incoming) {
+        Map<Long, Review> existing = new HashMap<>();
+        for (Review review : movie.getReviews()) {
+            if (review.getId() != null) {
+                existing.put(review.getId(), review);
+            }
+        }
+
+        Set<Long> keptIds = new HashSet<>();
+        Set<Long> unchangedIds = new HashSet<>();
+        List<Review> added = new ArrayList<>();
+        int updated = 0;
+        for (Review review : incoming) {
+            Review current = review.getId() == null ? null : existing.get(review.getId());
+            if (current == null) {
+                review.setId(null);
+                review.setMovie(movie);
+                added.add(review);
+            } else if (keptIds.add(current.getId())) {
+                if (Objects.equals(current.getUsername(), review.getUsername())
+                        && Objects.equals(current.getComment(), review.getComment())
+                        && current.getRating() == review.getRating()) {
+                    unchangedIds.add(current.getId());
+                } else {
+                    current.setUsername(review.getUsername());
+                    current.setComment(review.getComment());
+                    current.setRating(review.getRating());
+                    updated++;
+                }
+            }
+        }
+
+        List<Long> removedIds = new ArrayList<>();
+        movie.getReviews().removeIf(review -> {
+            if (review.getId() != null && keptIds.contains(review.getId())) {
+                return false;
+            }
+            if (review.getId() != null) {
+                removedIds.add(review.getId());
+            }
+            return true;
+        });
+        movie.getReviews().addAll(added);
+        return new ReviewChanges(removedIds, unchangedIds, added.size() + updated);
+    }
+
+    /**
+     * Wendet einen JSON Merge Patch auf Titel, Genre, Datum, Altersfreigabe oder Empfehlung an. Reviews
+     * werden dabei weder geladen noch geschrieben; sie werden über /api/reviews geändert.
+     */
+    @Transactional
+    public PatchedMovie patchMovie(Long id, JsonNode patch, MovieVersion expectedVersion) {
+        logger.info("Patche Film mit ID: {}", id);
+        Movie movie = movieRepository.findById(id).orElseThrow(() -> new MovieNotFoundException(id));
+        // Gleiches ETag wie GET: Film- und Review-Teil müssen passen, der Review-Teil geht in das neue ETag ein
+        long reviewsVersion = movieRepository.findVersionById(id).map(MovieVersion::reviews).orElse(0L);
+        if (expectedVersion != null && !expectedVersion.equals(new MovieVersion(movie.getVersion(), reviewsVersion))) {
+            throw new PreconditionFailedException("Movie", id);
+        }
+        boolean wasRecommended = movie.isRecommended();
+        String previousGenre = movie.getGenre();
+
+        MergePatch.apply(objectMapper, validator, movie, patch, PATCHABLE_FIELDS, NON_NULLABLE_FIELDS);
+        if (!Objects.equals(previousGenre, movie.getGenre())) {
+            genreService.assignGenres(List.of(movie));
+        }
+
+        AfterCommit.run(() -> {
+            searchIndex.indexMovie(movie);
+            recommendedMovieCache.evict(wasRecommended);
+            recommendedMovieCache.evict(movie.isRecommended());
+            movieRanking.update(movie);
+            movieResponseCache.evict(movie.getId());
+        });
+        return new PatchedMovie(movie, reviewsVersion);
+    }
+
+    /**
+     * Berechnet Summe, Anzahl, Durchschnitt und Histogramm der Bewertungen für Filme nach, die vor der
+     * serverseitigen Pflege angelegt wurden. Läuft vor dem Aufbau der Rangliste, die auf diesen Zählern beruht.
+     * Die Suche sperrt und vergleicht jede Zeile mit Unterabfragen über die Reviews; danach hält ReviewService die
+     * Zähler aktuell. Deshalb läuft sie nur einmal und wird anschließend in data_migration als erledigt vermerkt.
+     */
+    public void backfillRatingStatistics() {
+        if (dataMigrationRepository.existsById(RATING_STATISTICS_BACKFILL)) {
+            return;
+        }
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            long lastId = afterId;
+            List<Long> processed = transactionTemplate.execute(status -> {
+                List<Movie> movies = movieRepository.findWithStaleRatingStatisticsAfter(lastId,
+                        PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+                movies.forEach(Movie::recalculateRatings);
+                return movies.stream().map(Movie::getId).toList();
+            });
+            if (processed == null || processed.isEmpty()) {
+                break;
+            }
+            total += processed.size();
+            afterId = processed.get(processed.size() - 1);
+        }
+        if (total > 0) {
+            logger.info("Bewertungsstatistik für bestehende Filme nachgetragen: Anzahl={}", total);
+        }
+        try {
+            dataMigrationRepository.save(new DataMigration(RATING_STATISTICS_BACKFILL));
+        } catch (DataIntegrityViolationException e) {
+            // Eine parallel startende Instanz hat den Nachtrag gleichzeitig abgeschlossen und vermerkt
+            logger.debug("Bewertungsstatistik-Nachtrag bereits vermerkt");
+        }
+    }
+
+    @Transactional
     public void deleteById(Long id) {
         logger.info("Lösche Film mit ID: {}", id);
+        List<Long> reviewIds = reviewRepository.findIdsByMovieIdIn(List.of(id));
         movieRepository.deleteById(id);
+        AfterCommit.run(() -> {
+            searchIndex.removeMovie(id);
+            searchIndex.removeReviews(reviewIds);
+            recommendedMovieCache.evictAll();
+            movieRanking.remove(id);
+            movieResponseCache.evict(id);
+        });
     }
 
-    @Transactional
     public void deleteByReleaseDateBefore(LocalDate date) {
         logger.info("Lösche Filme vor Datum: {}", date);
-        movieRepository.deleteByReleaseDateBefore(date);
+        // Jeder Block läuft in einer eigenen Transaktion, damit Sperrdauer und Speicherbedarf konstant bleiben
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> deleteChunkBefore(date));
+            total += deleted;
+        } while (deleted == DELETE_CHUNK_SIZE);
+        logger.info("Filme vor Datum {} gelöscht: Anzahl={}", date, total);
+    }
+
+    private int deleteChunkBefore(LocalDate date) {
+        List<Long> ids = movieRepository.findIdsByReleaseDateBefore(date, PageRequest.of(0, DELETE_CHUNK_SIZE));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> reviewIds = reviewRepository.findIdsByMovieIdIn(ids);
+        reviewRepository.bulkDeleteByMovieIdIn(ids);
+        movieRepository.bulkDeleteByIdIn(ids);
+        AfterCommit.run(() -> {
+            searchIndex.removeMovies(ids);
+            searchIndex.removeReviews(reviewIds);
+            recommendedMovieCache.evictAll();
+            movieRanking.removeAll(ids);
+            movieResponseCache.evictAll(ids);
+        });
+        return ids.size();
     }
 
+    @Transactional
     public void deleteAll() {
         logger.info("Lösche alle Filme");
-        movieRepository.deleteAll();
+        // Set-basiert ohne Entitäten zu laden; Reviews zuerst wegen des Fremdschlüssels auf movie
+        reviewRepository.deleteAllInBatch();
+        movieRepository.deleteAllInBatch();
+        AfterCommit.run(() -> {
+            searchIndex.clearMovies();
+            searchIndex.clearReviews();
+            recommendedMovieCache.evictAll();
+            movieRanking.clear();
+            movieResponseCache.clear();
+        });
     }
 }
@@ -0,0 +1,48 @@
+package com.example.movie.service;
+
+import com.example.movie.model.Movie;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Materialisierte Ergebnisse von /api/movies/filter/recommended, je eine Liste pro Flag-Wert
+@Component
+public class RecommendedMovieCache {
+
+    private final Map<Boolean, List<Movie>> entries = new ConcurrentHashMap<>();
+    private long generation;
+
+    public List<Movie> get(boolean recommended, Supplier<List<Movie>> loader) {
+        List<Movie> cached = entries.get(recommended);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadedGeneration = currentGeneration();
+        List<Movie> loaded = List.copyOf(loader.get());
+        synchronized (this) {
+            // Wurde während des Ladens invalidiert, ist das Ergebnis evtl. veraltet und wird nicht gespeichert
+            if (generation == loadedGeneration) {
+                entries.put(recommended, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void evict(boolean recommended) {
+        generation++;
+        entries.remove(recommended);
+    }
+
+    public synchronized void evictAll() {
+        generation++;
+        entries.clear();
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+}
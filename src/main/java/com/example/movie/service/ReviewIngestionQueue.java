@@ -0,0 +1,231 @@
+package com.example.movie.service;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind queue for POST /api/reviews/async. Accepted reviews are written by a single background
+ * flusher in batches of up to {@link #BATCH_SIZE}, or after {@link #FLUSH_INTERVAL_MILLIS} at the latest.
+ * On shutdown the queue stops accepting and is drained before the database connections are closed.
+ * <p>
+ * A failed batch is retried with exponential backoff. If it violates a constraint, retrying as a whole cannot
+ * succeed, so it is split in halves until the offending reviews are isolated and the rest is written. Reviews
+ * that still cannot be written go to the {@code ReviewIngestionQueue.deadLetter} log, one line per review.
+ * Offering a review never touches the database: the movie is only checked when the batch is written, and
+ * reviews for unknown or meanwhile deleted movies are dead-lettered as well.
+ */
+@Component
+public class ReviewIngestionQueue implements SmartLifecycle {
+
+    static final int CAPACITY = 10_000;
+    static final int BATCH_SIZE = 500;
+    static final long FLUSH_INTERVAL_MILLIS = 200;
+    static final int MAX_ATTEMPTS = 4;
+    static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final Logger logger = LoggerFactory.getLogger(ReviewIngestionQueue.class);
+    private final Logger deadLetterLog = LoggerFactory.getLogger(ReviewIngestionQueue.class.getName() + ".deadLetter");
+    private final LongAdder deadLettered = new LongAdder();
+    private final BlockingQueue<Review> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final ReviewService reviewService;
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ReviewIngestionQueue(ReviewService reviewService) {
+        this.reviewService = reviewService;
+    }
+
+    /**
+     * @return false if the queue is full or shutting down; the caller should ask the client to retry later
+     */
+    public boolean offer(Review review) {
+        if (review.getMovie() == null || review.getMovie().getId() == 0) {
+            throw new IllegalArgumentException("Review must be linked to a movie");
+        }
+        if (!accepting) {
+            return false;
+        }
+        return queue.offer(review);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    public long deadLettered() {
+        return deadLettered.sum();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        accepting = true;
+        flusher = Thread.ofPlatform().name("review-flusher").start(this::runFlusher);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        accepting = false;
+        running = false;
+        try {
+            flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.error("Shutdown timeout reached, {} queued reviews were not written", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server (lower phase) so no requests are accepted while the queue drains
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runFlusher() {
+        List<Review> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch, BATCH_SIZE - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+            if (Thread.currentThread().isInterrupted() && queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    // Waits for the first review, then fills the batch until it is full or the flush interval has passed
+    void collectBatch(List<Review> batch) throws InterruptedException {
+        Review first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+        while (batch.size() < BATCH_SIZE) {
+            queue.drainTo(batch, BATCH_SIZE - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= BATCH_SIZE || remaining <= 0 || !running) {
+                return;
+            }
+            Review next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    void flush(List<Review> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<Review> written = reviewService.ingestReviews(copyOf(batch));
+                if (written.size() < batch.size()) {
+                    // ingestReviews drops reviews whose movie does not exist (anymore)
+                    deadLetter(batch.stream().filter(review -> isUnwritten(review, written)).toList(),
+                            "movie does not exist");
+                }
+                return;
+            } catch (DataIntegrityViolationException | ConstraintViolationException | IllegalArgumentException e) {
+                splitAndFlush(batch, e);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    logger.error("Failed to write {} queued reviews after {} attempts", batch.size(), attempt, e);
+                    deadLetter(batch, e.getMessage());
+                    return;
+                }
+                logger.warn("Failed to write {} queued reviews (attempt {}), retrying: {}", batch.size(), attempt,
+                        e.getMessage());
+                if (!sleep(RETRY_BACKOFF_MILLIS << (attempt - 1))) {
+                    deadLetter(batch, "interrupted while retrying: " + e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void splitAndFlush(List<Review> batch, RuntimeException cause) {
+        if (batch.size() == 1) {
+            deadLetter(batch, cause.getMessage());
+            return;
+        }
+        int middle = batch.size() / 2;
+        flush(batch.subList(0, middle));
+        flush(batch.subList(middle, batch.size()));
+    }
+
+    // Matches by movie, since the written copies are new objects
+    private static boolean isUnwritten(Review review, List<Review> written) {
+        return written.stream().noneMatch(saved -> saved.getMovie() != null
+                && saved.getMovie().getId() == review.getMovie().getId());
+    }
+
+    private void deadLetter(List<Review> reviews, String reason) {
+        for (Review review : reviews) {
+            deadLetterLog.error("movieId={} username={} rating={} comment={} reason={}", review.getMovie().getId(),
+                    review.getUsername(), review.getRating(), review.getComment(), reason);
+        }
+        deadLettered.add(reviews.size());
+    }
+
+    // A failed transaction leaves ids and managed movies on the reviews it touched, so every attempt gets fresh copies
+    private static List<Review> copyOf(List<Review> batch) {
+        List<Review> copies = new ArrayList<>(batch.size());
+        for (Review review : batch) {
+            Review copy = new Review();
+            copy.setUsername(review.getUsername());
+            copy.setComment(review.getComment());
+            copy.setRating(review.getRating());
+            Movie movie = new Movie();
+            movie.setId(review.getMovie().getId());
+            copy.setMovie(movie);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
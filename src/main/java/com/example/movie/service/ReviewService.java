@@ -1,72 +1,223 @@
 package com.example.movie.service;
 
+import com.example.movie.dto.MovieVersion;
 import com.example.movie.exception.MovieNotFoundException;
+import com.example.movie.exception.PreconditionFailedException;
 import com.example.movie.exception.ReviewNotFoundException;
+import com.example.movie.index.InvertedIndex;
+import com.example.movie.index.SearchIndexService;
 import com.example.movie.model.Movie;
 import com.example.movie.model.Review;
 import com.example.movie.repository.MovieRepository;
 import com.example.movie.repository.ReviewRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ReviewService {
 
+    private static final int MOVIE_LOOKUP_CHUNK_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("username", "comment", "rating");
+    private static final Set<String> NON_NULLABLE_FIELDS = Set.of("rating");
+
     private final Logger logger = LoggerFactory.getLogger(ReviewService.class);
     private final ReviewRepository reviewRepository;
     private final MovieRepository movieRepository;
+    private final SearchIndexService searchIndex;
+    private final RecommendedMovieCache recommendedMovieCache;
+    private final MovieRankingService movieRanking;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final MovieResponseCache movieResponseCache;
 
-    public ReviewService(ReviewRepository reviewRepository, MovieRepository movieRepository) {
+    public ReviewService(ReviewRepository reviewRepository, MovieRepository movieRepository,
+                         SearchIndexService searchIndex, RecommendedMovieCache recommendedMovieCache,
+                         MovieRankingService movieRanking, Validator validator, ObjectMapper objectMapper,
+                         MovieResponseCache movieResponseCache) {
         this.reviewRepository = reviewRepository;
         this.movieRepository = movieRepository;
+        this.searchIndex = searchIndex;
+        this.recommendedMovieCache = recommendedMovieCache;
+        this.movieRanking = movieRanking;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.movieResponseCache = movieResponseCache;
     }
 
+    @Transactional(readOnly = true)
     public List<Review> getAllReviews() {
         logger.info("Get all reviews");
         return reviewRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Review> getReviewsByMovieId(Long movieId) {
         logger.info("Get reviews for movie ID: {}", movieId);
         return reviewRepository.findByMovieId(movieId);
     }
 
+    // Version of the movie and its reviews, used as ETag for the per-movie review list
+    @Transactional(readOnly = true)
+    public Optional<MovieVersion> getMovieVersion(Long movieId) {
+        return movieRepository.findVersionById(movieId);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Review> getReviewById(Long id) {
         logger.info("Get review by ID: {}", id);
         return reviewRepository.findById(id);
     }
 
-    private void attachAndValidateMovie(Review review) {
+    @Transactional(readOnly = true)
+    public List<Review> searchReviews(String query, int page, int size) {
+        logger.info("Search reviews for: {} (page {}, size {})", query, page, size);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        InvertedIndex.SearchResult result = searchIndex.searchReviews(query, Math.max(page, 0), pageSize);
+        List<Long> ids = result.hits().stream().map(InvertedIndex.Hit::id).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Review> reviews = reviewRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Review::getId, Function.identity()));
+        return ids.stream().map(reviews::get).filter(Objects::nonNull).toList();
+    }
+
+    // Locks the movie row so that concurrent review writes cannot lose rating updates
+    private Movie lockMovie(Long movieId) {
+        return movieRepository.findByIdForUpdate(movieId)
+                .orElseThrow(() -> new MovieNotFoundException(movieId));
+    }
+
+    // Same as lockMovie for many IDs; locks are taken in ascending ID order to avoid deadlocks
+    private Map<Long, Movie> lockMovies(SortedSet<Long> movieIds) {
+        List<Long> ids = new ArrayList<>(movieIds);
+        Map<Long, Movie> movies = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MOVIE_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MOVIE_LOOKUP_CHUNK_SIZE, ids.size()));
+            for (Movie movie : movieRepository.findAllByIdInForUpdate(chunk)) {
+                movies.put(movie.getId(), movie);
+            }
+        }
+        return movies;
+    }
+
+    private void validateMovieLink(Review review) {
         if (review.getMovie() == null || review.getMovie().getId() == 0) {
             throw new IllegalArgumentException("Review must be linked to a movie");
         }
-        Long movieId = review.getMovie().getId();
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new MovieNotFoundException(movieId));
-        review.setMovie(movie);
     }
 
+    private void attachAndValidateMovie(Review review) {
+        validateMovieLink(review);
+        review.setMovie(lockMovie(review.getMovie().getId()));
+    }
+
+    @Transactional
     public Review createReview(Review review) {
         logger.info("Create review by user: {}", review.getUsername());
         attachAndValidateMovie(review);
-        return reviewRepository.save(review);
+        review.getMovie().addRating(review.getRating());
+        Review saved = reviewRepository.save(review);
+        Movie movie = saved.getMovie();
+        AfterCommit.run(() -> {
+            searchIndex.indexReview(saved);
+            recommendedMovieCache.evict(movie.isRecommended());
+            movieRanking.update(movie);
+            movieResponseCache.evict(movie.getId());
+        });
+        return saved;
     }
 
+    @Transactional
     public List<Review> createReviewsBatch(List<Review> reviews) {
         logger.info("Create batch reviews, count: {}", reviews.size());
+        return saveBatch(reviews, true);
+    }
+
+    // Used by the write-behind queue: reviews whose movie does not exist (anymore) are dropped
+    @Transactional
+    public List<Review> ingestReviews(List<Review> reviews) {
+        logger.info("Flush queued reviews, count: {}", reviews.size());
+        return saveBatch(reviews, false);
+    }
+
+    private List<Review> saveBatch(List<Review> reviews, boolean failOnMissingMovie) {
+        SortedSet<Long> movieIds = new TreeSet<>();
         for (Review review : reviews) {
-            attachAndValidateMovie(review);
+            validateMovieLink(review);
+            movieIds.add(review.getMovie().getId());
+        }
+
+        Map<Long, Movie> movies = lockMovies(movieIds);
+        List<Long> missingIds = movieIds.stream()
+                .filter(movieId -> !movies.containsKey(movieId))
+                .toList();
+        List<Review> accepted = reviews;
+        if (!missingIds.isEmpty()) {
+            if (failOnMissingMovie) {
+                throw new MovieNotFoundException(missingIds);
+            }
+            accepted = reviews.stream()
+                    .filter(review -> movies.containsKey(review.getMovie().getId()))
+                    .toList();
+            logger.warn("Dropping {} queued reviews for missing movies {}", reviews.size() - accepted.size(), missingIds);
+        }
+
+        for (Review review : accepted) {
+            Movie movie = movies.get(review.getMovie().getId());
+            review.setMovie(movie);
+            movie.addRating(review.getRating());
         }
-        return reviewRepository.saveAll(reviews);
+        List<Review> saved = reviewRepository.saveAll(accepted);
+        List<Boolean> recommendedFlags = movies.values().stream().map(Movie::isRecommended).distinct().toList();
+        AfterCommit.run(() -> {
+            saved.forEach(searchIndex::indexReview);
+            recommendedFlags.forEach(recommendedMovieCache::evict);
+            movies.values().forEach(movieRanking::update);
+            movieResponseCache.evictAll(movies.keySet());
+        });
+        return saved;
     }
 
+    @Transactional
     public Review updateReview(Long id, Review updatedReview) {
+        return updateReview(id, updatedReview, null);
+    }
+
+    /**
+     * @param expectedVersion version from the If-Match header; if it differs, nothing is changed
+     */
+    @Transactional
+    public Review updateReview(Long id, Review updatedReview, Long expectedVersion) {
         logger.info("Update review with ID: {}", id);
         return reviewRepository.findById(id).map(review -> {
+            if (expectedVersion != null && review.getVersion() != expectedVersion) {
+                throw new PreconditionFailedException("Review", id);
+            }
+            Movie previousMovie = null;
+            if (review.getMovie() != null) {
+                previousMovie = lockMovie(review.getMovie().getId());
+                previousMovie.removeRating(review.getRating());
+                review.setMovie(previousMovie);
+            }
             review.setUsername(updatedReview.getUsername());
             review.setComment(updatedReview.getComment());
             review.setRating(updatedReview.getRating());
@@ -74,20 +225,100 @@ public class ReviewService {
                 attachAndValidateMovie(updatedReview);
                 review.setMovie(updatedReview.getMovie());
             }
-            return reviewRepository.save(review);
+            if (review.getMovie() != null) {
+                review.getMovie().addRating(review.getRating());
+            }
+            Review saved = reviewRepository.save(review);
+            Movie affectedMovie = previousMovie;
+            AfterCommit.run(() -> {
+                searchIndex.indexReview(saved);
+                if (affectedMovie != null) {
+                    recommendedMovieCache.evict(affectedMovie.isRecommended());
+                    movieRanking.update(affectedMovie);
+                    movieResponseCache.evict(affectedMovie.getId());
+                }
+                if (saved.getMovie() != null) {
+                    recommendedMovieCache.evict(saved.getMovie().isRecommended());
+                    movieRanking.update(saved.getMovie());
+                    movieResponseCache.evict(saved.getMovie().getId());
+                }
+            });
+            return saved;
         }).orElseThrow(() -> new ReviewNotFoundException(id));
     }
 
+    /**
+     * Applies a JSON merge patch to username, comment or rating; the movie row is only locked for rating changes.
+     *
+     * @param expectedVersion version from the If-Match header; if it differs, nothing is changed
+     */
+    @Transactional
+    public Review patchReview(Long id, JsonNode patch, Long expectedVersion) {
+        logger.info("Patch review with ID: {}", id);
+        Review review = reviewRepository.findById(id)
+                .orElseThrow(() -> new ReviewNotFoundException(id));
+        if (expectedVersion != null && review.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException("Review", id);
+        }
+        Movie movie = patch != null && patch.has("rating") && review.getMovie() != null
+                ? lockMovie(review.getMovie().getId())
+                : null;
+        int previousRating = review.getRating();
+
+        MergePatch.apply(objectMapper, validator, review, patch, PATCHABLE_FIELDS, NON_NULLABLE_FIELDS);
+        boolean ratingChanged = movie != null && review.getRating() != previousRating;
+        if (ratingChanged) {
+            movie.removeRating(previousRating);
+            movie.addRating(review.getRating());
+        }
+        // The cached recommended lists embed full reviews, so comment and username changes must evict them too
+        Boolean recommended = review.getMovie() != null ? review.getMovie().isRecommended() : null;
+
+        AfterCommit.run(() -> {
+            searchIndex.indexReview(review);
+            if (review.getMovie() != null) {
+                movieResponseCache.evict(review.getMovie().getId());
+            }
+            if (recommended != null) {
+                recommendedMovieCache.evict(recommended);
+            }
+            if (ratingChanged) {
+                movieRanking.update(movie);
+            }
+        });
+        return review;
+    }
+
+    @Transactional
     public void deleteReviewById(Long id) {
         logger.info("Delete review with ID: {}", id);
-        if (!reviewRepository.existsById(id)) {
-            throw new ReviewNotFoundException(id);
+        Review review = reviewRepository.findById(id)
+                .orElseThrow(() -> new ReviewNotFoundException(id));
+        Movie movie = review.getMovie() != null ? lockMovie(review.getMovie().getId()) : null;
+        if (movie != null) {
+            movie.removeRating(review.getRating());
         }
-        reviewRepository.deleteById(id);
+        reviewRepository.delete(review);
+        AfterCommit.run(() -> {
+            searchIndex.removeReview(id);
+            if (movie != null) {
+                recommendedMovieCache.evict(movie.isRecommended());
+                movieRanking.update(movie);
+                movieResponseCache.evict(movie.getId());
+            }
+        });
     }
 
+    @Transactional
     public void deleteAllReviews() {
         logger.info("Delete all reviews");
-        reviewRepository.deleteAll();
+        reviewRepository.deleteAllInBatch();
+        movieRepository.resetRatingStatistics();
+        AfterCommit.run(() -> {
+            searchIndex.clearReviews();
+            recommendedMovieCache.evictAll();
+            movieRanking.resetRatings();
+            movieResponseCache.clear();
+        });
     }
 }
@@ -0,0 +1,54 @@
+package com.example.movie.service;
+
+import com.example.movie.index.SearchIndexService;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trägt Genres und Bewertungszähler für Altbestände nach und baut Suchindex und Rangliste auf, bevor der
+ * Webserver startet. Bis dahin nimmt die Anwendung keine Requests an, Suche und Top-Liste sind also nie
+ * unvollständig. Die Rangliste wird erst nach den Bewertungszählern aufgebaut, auf denen sie beruht. Der Nachtrag
+ * der Bewertungszähler läuft nur beim ersten Start, danach ist er in data_migration vermerkt.
+ */
+@Component
+public class StartupTasks implements SmartLifecycle {
+
+    private final GenreService genreService;
+    private final MovieService movieService;
+    private final SearchIndexService searchIndex;
+    private final MovieRankingService movieRanking;
+    private volatile boolean running;
+
+    public StartupTasks(GenreService genreService, MovieService movieService, SearchIndexService searchIndex,
+                        MovieRankingService movieRanking) {
+        this.genreService = genreService;
+        this.movieService = movieService;
+        this.searchIndex = searchIndex;
+        this.movieRanking = movieRanking;
+    }
+
+    @Override
+    public void start() {
+        genreService.backfillGenres();
+        movieService.backfillRatingStatistics();
+        searchIndex.rebuild();
+        movieRanking.rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Vor dem Webserver und vor dem Flusher der ReviewIngestionQueue
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
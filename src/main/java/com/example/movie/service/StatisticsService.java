@@ -0,0 +1,92 @@
+package com.example.movie.service;
+
+import com.example.movie.config.ReplicaRoutingDataSource;
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class StatisticsService {
+
+    static final List<String> CACHE_REGIONS = List.of(
+            Movie.class.getName(),
+            Movie.class.getName() + ".reviews",
+            Review.class.getName()
+    );
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+    private final ObjectProvider<ReplicaRoutingDataSource> routingDataSource;
+
+    public StatisticsService(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                             ObjectProvider<ReplicaRoutingDataSource> routingDataSource) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+        this.routingDataSource = routingDataSource;
+    }
+
+    public Map<String, Map<String, Long>> getCacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        for (String region : CACHE_REGIONS) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("hits", regionStatistics.getHitCount());
+            values.put("misses", regionStatistics.getMissCount());
+            values.put("puts", regionStatistics.getPutCount());
+            values.put("elementsInMemory", regionStatistics.getElementCountInMemory());
+            result.put(region, values);
+        }
+        Map<String, Long> total = new LinkedHashMap<>();
+        total.put("hits", statistics.getSecondLevelCacheHitCount());
+        total.put("misses", statistics.getSecondLevelCacheMissCount());
+        total.put("puts", statistics.getSecondLevelCachePutCount());
+        result.put("total", total);
+        return result;
+    }
+
+    public Map<String, Map<String, Object>> getDataSourceStatistics() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        ReplicaRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing == null) {
+            result.put("primary", poolStatistics(dataSource));
+            return result;
+        }
+
+        for (ReplicaRoutingDataSource.Route route : ReplicaRoutingDataSource.Route.values()) {
+            Map<String, Object> values = poolStatistics(routing.getPool(route));
+            values.put("routedConnections", routing.getConnectionCount(route));
+            result.put(route.name().toLowerCase(Locale.ROOT), values);
+        }
+        Map<String, Object> replica = result.get("replica");
+        replica.put("available", routing.isReplicaAvailable());
+        replica.put("lagSeconds", routing.getLastLagSeconds());
+        replica.put("fallbacksToPrimary", routing.getFallbackCount());
+        return result;
+    }
+
+    private static Map<String, Object> poolStatistics(DataSource pool) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (pool instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean mxBean = hikari.getHikariPoolMXBean();
+            values.put("active", mxBean.getActiveConnections());
+            values.put("idle", mxBean.getIdleConnections());
+            values.put("total", mxBean.getTotalConnections());
+            values.put("threadsAwaitingConnection", mxBean.getThreadsAwaitingConnection());
+        }
+        return values;
+    }
+}
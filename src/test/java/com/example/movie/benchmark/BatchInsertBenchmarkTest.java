@@ -0,0 +1,95 @@
+package com.example.movie.benchmark;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.example.movie.repository.MovieRepository;
+import com.example.movie.repository.ReviewRepository;
+import com.example.movie.service.MovieService;
+import com.example.movie.service.ReviewService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Misst Zeilen pro Sekunde für /api/movies/batch und /api/reviews/batch gegen die konfigurierte Datenbank.
+ * Läuft nur mit {@code -Dbenchmark=true}; für den Vorher/Nachher-Vergleich denselben Test auf dem
+ * jeweiligen Commit ausführen.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchInsertBenchmarkTest {
+
+    private static final int ROWS = 10_000;
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    private List<Movie> buildMovies(int count) {
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Movie m = new Movie();
+            m.setTitle("Benchmark " + i);
+            m.setGenre("Benchmark");
+            m.setReleaseDate(LocalDate.of(2000, 1, 1));
+            m.setAgeRating(12);
+            movies.add(m);
+        }
+        return movies;
+    }
+
+    private List<Review> buildReviews(Movie movie, int count) {
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Review r = new Review();
+            r.setUsername("bench" + i);
+            r.setComment("Benchmark review " + i);
+            r.setRating(1 + i % 10);
+            Movie ref = new Movie();
+            ref.setId(movie.getId());
+            r.setMovie(ref);
+            reviews.add(r);
+        }
+        return reviews;
+    }
+
+    @Test
+    void batchInsert_rowsPerSecond() {
+        // Aufwärmen, damit JIT und Connection-Pool den Messwert nicht verfälschen
+        List<Movie> warmup = movieService.createMovies(buildMovies(1_000));
+        movieRepository.deleteAllByIdInBatch(warmup.stream().map(Movie::getId).toList());
+
+        long start = System.nanoTime();
+        List<Movie> movies = movieService.createMovies(buildMovies(ROWS));
+        long movieNanos = System.nanoTime() - start;
+        assertEquals(ROWS, movies.size());
+
+        start = System.nanoTime();
+        List<Review> reviews = reviewService.createReviewsBatch(buildReviews(movies.get(0), ROWS));
+        long reviewNanos = System.nanoTime() - start;
+        assertEquals(ROWS, reviews.size());
+
+        System.out.printf("Movies:  %d Zeilen in %d ms -> %.0f Zeilen/s%n",
+                ROWS, movieNanos / 1_000_000, ROWS / (movieNanos / 1e9));
+        System.out.printf("Reviews: %d Zeilen in %d ms -> %.0f Zeilen/s%n",
+                ROWS, reviewNanos / 1_000_000, ROWS / (reviewNanos / 1e9));
+
+        reviewRepository.deleteAllByIdInBatch(reviews.stream().map(Review::getId).toList());
+        movieRepository.deleteAllByIdInBatch(movies.stream().map(Movie::getId).toList());
+    }
+}
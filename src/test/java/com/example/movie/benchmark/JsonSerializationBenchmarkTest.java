@@ -0,0 +1,101 @@
+package com.example.movie.benchmark;
+
+import com.example.movie.config.EntityJsonSerializers;
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * JMH-Vergleich des Standard-BeanSerializers (mit {@code @JsonIdentityInfo}) mit den eigenen
+ * Serializern aus {@link EntityJsonSerializers} für einen Film mit Reviews. Ausgegeben werden
+ * ns/op und über den GC-Profiler die allokierten Bytes pro Operation ({@code gc.alloc.rate.norm}).
+ * Läuft nur mit {@code -Dbenchmark=true}; Anzahl Reviews über -Dbenchmark.reviews.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmarkTest {
+
+    @Param("20")
+    public int reviews;
+
+    private ObjectMapper beanMapper;
+    private ObjectMapper dedicatedMapper;
+    private Movie movie;
+
+    @Setup
+    public void setUp() {
+        beanMapper = new ObjectMapper().findAndRegisterModules();
+        dedicatedMapper = new ObjectMapper().findAndRegisterModules().registerModule(new SimpleModule()
+                .addSerializer(Movie.class, new EntityJsonSerializers.MovieSerializer())
+                .addSerializer(Review.class, new EntityJsonSerializers.ReviewSerializer()));
+        movie = buildMovie(reviews);
+    }
+
+    @Benchmark
+    public byte[] beanSerializer() throws Exception {
+        return beanMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public byte[] dedicatedSerializer() throws Exception {
+        return dedicatedMapper.writeValueAsBytes(movie);
+    }
+
+    @Test
+    void beanVersusDedicatedSerializer() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JsonSerializationBenchmarkTest.class.getName() + "\\.")
+                .param("reviews", String.valueOf(Integer.getInteger("benchmark.reviews", 20)))
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.printf("%-22s %12s %12s%n", "Serializer", "ns/op", "B/op");
+        for (RunResult result : results) {
+            System.out.printf("%-22s %12.0f %12.0f%n", result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    result.getPrimaryResult().getScore(),
+                    result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+        }
+        assertEquals(2, results.size());
+    }
+
+    private static Movie buildMovie(int reviews) {
+        Movie movie = new Movie();
+        movie.setId(1L);
+        movie.setTitle("Benchmark");
+        movie.setGenre("Drama");
+        movie.setReleaseDate(LocalDate.of(2000, 1, 1));
+        movie.setAgeRating(12);
+        for (int i = 0; i < reviews; i++) {
+            Review review = new Review();
+            review.setId((long) i + 1);
+            review.setUsername("bench" + i);
+            review.setComment("Benchmark-Kommentar " + i);
+            review.setRating(1 + i % 10);
+            review.setMovie(movie);
+            movie.getReviews().add(review);
+        }
+        movie.recalculateRatings();
+        return movie;
+    }
+}
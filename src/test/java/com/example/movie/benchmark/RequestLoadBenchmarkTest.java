@@ -0,0 +1,170 @@
+package com.example.movie.benchmark;
+
+import com.example.movie.MovieApplication;
+import com.example.movie.model.Movie;
+import com.example.movie.repository.MovieRepository;
+import com.example.movie.service.MovieService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vergleicht Durchsatz und p99-Latenz mit Plattform-Threads (Tomcat-Pool) und virtuellen Threads.
+ * Startet die Anwendung nacheinander in beiden Modi gegen die konfigurierte Datenbank und lastet
+ * jeweils einen JDBC-lastigen Endpunkt mit mehr parallelen Clients aus, als Tomcat Threads hat.
+ * Läuft nur mit {@code -Dbenchmark=true}; Parameter über -Dbenchmark.clients/-Dbenchmark.seconds.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RequestLoadBenchmarkTest {
+
+    private static final int MOVIES = 200;
+    private static final String GENRE = "benchmark-load";
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 30));
+    private static final String AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString("user:user".getBytes(StandardCharsets.UTF_8));
+
+    private record Result(String mode, long requests, long errors, double seconds, long p50Micros, long p99Micros) {
+    }
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            results.add(run(virtualThreads));
+        }
+
+        System.out.printf("%-10s %10s %10s %12s %10s %10s%n", "Modus", "Requests", "Fehler", "Requests/s", "p50 ms", "p99 ms");
+        for (Result result : results) {
+            System.out.printf("%-10s %10d %10d %12.0f %10.1f %10.1f%n", result.mode(), result.requests(),
+                    result.errors(), result.requests() / result.seconds(),
+                    result.p50Micros() / 1000.0, result.p99Micros() / 1000.0);
+        }
+        results.forEach(result -> assertEquals(0, result.errors(), result.mode() + " hatte Fehler"));
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MovieApplication.class)
+                .properties("server.port=0", "app.threads.virtual.enabled=" + virtualThreads,
+                        "spring.jpa.show-sql=false")
+                .run()) {
+            MovieService movieService = context.getBean(MovieService.class);
+            MovieRepository movieRepository = context.getBean(MovieRepository.class);
+            List<Movie> seeded = movieService.createMovies(buildMovies());
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + "/api/movies/filter/genre?view=summary&genre=" + GENRE);
+                load(uri, WARMUP);
+                return summarize(virtualThreads ? "virtuell" : "plattform", load(uri, MEASUREMENT), MEASUREMENT);
+            } finally {
+                movieRepository.deleteAllByIdInBatch(seeded.stream().map(Movie::getId).toList());
+            }
+        }
+    }
+
+    private List<long[]> load(URI uri, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", AUTHORIZATION)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        // Jeder Client misst seine eigenen Latenzen; [0] = Fehleranzahl, danach Latenzen in Mikrosekunden
+        List<Future<long[]>> clients = new ArrayList<>(CLIENTS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] samples = new long[1024];
+                    int size = 1;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (!ok) {
+                            samples[0]++;
+                            continue;
+                        }
+                        if (size == samples.length) {
+                            samples = Arrays.copyOf(samples, size * 2);
+                        }
+                        samples[size++] = (System.nanoTime() - start) / 1000;
+                    }
+                    return Arrays.copyOf(samples, size);
+                }));
+            }
+        }
+        List<long[]> samples = new ArrayList<>(CLIENTS);
+        for (Future<long[]> future : clients) {
+            samples.add(future.get());
+        }
+        return samples;
+    }
+
+    private static Result summarize(String mode, List<long[]> perClient, Duration duration) {
+        long errors = 0;
+        int total = 0;
+        for (long[] samples : perClient) {
+            errors += samples[0];
+            total += samples.length - 1;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (long[] samples : perClient) {
+            System.arraycopy(samples, 1, latencies, offset, samples.length - 1);
+            offset += samples.length - 1;
+        }
+        Arrays.sort(latencies);
+        return new Result(mode, total, errors, duration.toMillis() / 1000.0,
+                percentile(latencies, 50), percentile(latencies, 99));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static List<Movie> buildMovies() {
+        List<Movie> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            Movie m = new Movie();
+            m.setTitle("Load " + i);
+            m.setGenre(GENRE);
+            m.setReleaseDate(LocalDate.of(2000, 1, 1));
+            m.setAgeRating(12);
+            movies.add(m);
+        }
+        return movies;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.movie.config;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityJsonSerializersTest {
+
+    // Standard-BeanSerializer mit @JsonIdentityInfo, wie vor den eigenen Serializern
+    private final ObjectMapper beanMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new ObjectMapper().findAndRegisterModules().registerModule(new SimpleModule()
+                .addSerializer(Movie.class, new EntityJsonSerializers.MovieSerializer())
+                .addSerializer(Review.class, new EntityJsonSerializers.ReviewSerializer()));
+    }
+
+    static Movie movieWithReviews(int reviews) {
+        Movie movie = new Movie();
+        movie.setId(42L);
+        movie.setTitle("Der \"Pate\" – Teil II");
+        movie.setGenre("Drama");
+        movie.setReleaseDate(LocalDate.of(1974, 12, 12));
+        movie.setAgeRating(16);
+        movie.setRecommended(true);
+        for (int i = 0; i < reviews; i++) {
+            Review review = new Review();
+            review.setId(100L + i);
+            review.setUsername("user" + i);
+            review.setComment("Kommentar\nmit Umbruch " + i);
+            review.setRating(1 + i % 10);
+            review.setMovie(movie);
+            movie.getReviews().add(review);
+        }
+        movie.recalculateRatings();
+        return movie;
+    }
+
+    @Test
+    void movie_matchesBeanSerializerOutput() throws Exception {
+        Movie movie = movieWithReviews(3);
+
+        JsonNode expected = beanMapper.readTree(beanMapper.writeValueAsBytes(movie));
+        JsonNode actual = mapper.readTree(mapper.writeValueAsBytes(movie));
+
+        assertEquals(expected, actual);
+        assertEquals("1974-12-12", actual.get("releaseDate").asText());
+        assertFalse(actual.get("reviews").get(0).has("movie"));
+    }
+
+    @Test
+    void movieList_matchesBeanSerializerOutput() throws Exception {
+        List<Movie> movies = List.of(movieWithReviews(0), movieWithReviews(2));
+        movies.get(0).setId(7L);
+
+        JsonNode expected = beanMapper.readTree(beanMapper.writeValueAsBytes(movies));
+        JsonNode actual = mapper.readTree(mapper.writeValueAsBytes(movies));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void review_matchesBeanSerializerOutput() throws Exception {
+        Review review = movieWithReviews(1).getReviews().get(0);
+
+        assertEquals(beanMapper.readTree(beanMapper.writeValueAsBytes(review)),
+                mapper.readTree(mapper.writeValueAsBytes(review)));
+    }
+
+    @Test
+    void nullFields_areWrittenAsNull() throws Exception {
+        Movie movie = new Movie();
+        movie.setReviews(null);
+        Review review = new Review();
+
+        JsonNode movieJson = mapper.readTree(mapper.writeValueAsBytes(movie));
+        JsonNode reviewJson = mapper.readTree(mapper.writeValueAsBytes(review));
+
+        assertTrue(movieJson.get("title").isNull());
+        assertTrue(movieJson.get("releaseDate").isNull());
+        assertTrue(movieJson.get("reviews").isNull());
+        assertTrue(reviewJson.get("id").isNull());
+        assertTrue(reviewJson.get("comment").isNull());
+    }
+
+    @Test
+    void serializedMovie_canBeReadBack() throws Exception {
+        Movie movie = movieWithReviews(2);
+
+        Movie read = beanMapper.readValue(mapper.writeValueAsBytes(movie), Movie.class);
+
+        assertEquals(movie.getTitle(), read.getTitle());
+        assertEquals(movie.getReleaseDate(), read.getReleaseDate());
+        assertEquals(2, read.getReviews().size());
+        assertSame(read, read.getReviews().get(1).getMovie());
+    }
+}
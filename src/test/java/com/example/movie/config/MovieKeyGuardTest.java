@@ -0,0 +1,56 @@
+package com.example.movie.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieKeyGuardTest {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    // Bestehende Tabelle ohne Unique-Index, wie sie ddl-auto=update bei Duplikaten zurücklässt
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:movie_key_guard;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("drop all objects");
+        jdbc.execute("create table movie (id bigint primary key, title varchar(255), release_date date)");
+    }
+
+    @Test
+    void missingIndexWithoutDuplicates_createsIndex() {
+        jdbc.update("insert into movie values (1, 'Alien', '1979-05-25'), (2, 'Alien', '1986-07-18')");
+
+        new MovieKeyGuard(dataSource).afterSingletonsInstantiated();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbc.update("insert into movie values (3, 'Alien', '1979-05-25')"));
+    }
+
+    @Test
+    void missingIndexWithDuplicates_failsStartupListingKeys() {
+        jdbc.update("insert into movie values (1, 'Alien', '1979-05-25'), (2, 'Alien', '1979-05-25')");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new MovieKeyGuard(dataSource).afterSingletonsInstantiated());
+
+        assertTrue(e.getMessage().contains("Alien / 1979-05-25 (2x)"));
+    }
+
+    @Test
+    void existingIndex_isLeftAlone() {
+        jdbc.execute("alter table movie add constraint uk_existing unique (title, release_date)");
+
+        new MovieKeyGuard(dataSource).afterSingletonsInstantiated();
+
+        assertEquals(1, jdbc.queryForObject("select count(*) from information_schema.table_constraints "
+                + "where table_name = 'MOVIE' and constraint_type = 'UNIQUE'", Integer.class));
+    }
+}
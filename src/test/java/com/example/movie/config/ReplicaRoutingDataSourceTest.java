@@ -0,0 +1,169 @@
+package com.example.movie.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private SwitchableDataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = embeddedDatabase("primary");
+        replica = new SwitchableDataSource(embeddedDatabase("replica"));
+    }
+
+    // Simuliert ein Replikat, das ausfällt, ohne dass die Hintergrundprüfung es schon bemerkt hat
+    private static class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+
+    // Jede Datenbank kennt nur ihren eigenen Namen, so ist sichtbar, wohin eine Abfrage geroutet wurde
+    private static DataSource embeddedDatabase(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists node (name varchar(20))");
+        jdbc.update("delete from node");
+        jdbc.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+
+    private ReplicaRoutingDataSource routing(long maxLagSeconds, String lagQuery) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, Duration.ZERO,
+                maxLagSeconds, lagQuery);
+        routing.afterPropertiesSet();
+        routing.refreshReplicaStatus();
+        return routing;
+    }
+
+    private static DataSource lazyProxy(ReplicaRoutingDataSource routing) {
+        return DataSourceConfig.lazyConnectionProxy(routing, true, null);
+    }
+
+    private static String currentNode(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        return transactionTemplate.execute(status -> jdbc.queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    void readOnlyTransaction_isRoutedToReplica() {
+        ReplicaRoutingDataSource routing = routing(5, "");
+
+        assertEquals("replica", currentNode(lazyProxy(routing), true));
+        assertEquals(1, routing.getConnectionCount(ReplicaRoutingDataSource.Route.REPLICA));
+        assertEquals(0, routing.getConnectionCount(ReplicaRoutingDataSource.Route.PRIMARY));
+    }
+
+    @Test
+    void readWriteTransaction_isRoutedToPrimary() {
+        ReplicaRoutingDataSource routing = routing(5, "");
+
+        assertEquals("primary", currentNode(lazyProxy(routing), false));
+        assertEquals(0, routing.getConnectionCount(ReplicaRoutingDataSource.Route.REPLICA));
+    }
+
+    @Test
+    void withoutTransaction_isRoutedToPrimary() {
+        ReplicaRoutingDataSource routing = routing(5, "");
+
+        String node = new JdbcTemplate(lazyProxy(routing))
+                .queryForObject("select name from node", String.class);
+
+        assertEquals("primary", node);
+    }
+
+    @Test
+    void replicaLagAboveLimit_fallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = routing(5, "select 60");
+
+        assertEquals("primary", currentNode(lazyProxy(routing), true));
+        assertFalse(routing.isReplicaAvailable());
+        assertEquals(60, routing.getLastLagSeconds());
+        assertEquals(1, routing.getFallbackCount());
+    }
+
+    @Test
+    void replicaLagWithinLimit_usesReplica() {
+        ReplicaRoutingDataSource routing = routing(5, "select 2");
+
+        assertEquals("replica", currentNode(lazyProxy(routing), true));
+        assertEquals(2, routing.getLastLagSeconds());
+    }
+
+    @Test
+    void replicaCheckFails_fallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = routing(5, "select seconds_behind from replication_status");
+
+        assertEquals("primary", currentNode(lazyProxy(routing), true));
+        assertFalse(routing.isReplicaAvailable());
+    }
+
+    @Test
+    void replicaUnreachableBetweenChecks_fallsBackToPrimaryInsteadOfFailing() {
+        ReplicaRoutingDataSource routing = routing(5, "");
+        replica.down = true;
+
+        assertEquals("primary", currentNode(lazyProxy(routing), true));
+        assertFalse(routing.isReplicaAvailable());
+        assertEquals(1, routing.getFallbackCount());
+        assertEquals(0, routing.getConnectionCount(ReplicaRoutingDataSource.Route.REPLICA));
+    }
+
+    @Test
+    void replicaReachableAgain_isUsedAfterNextCheck() {
+        ReplicaRoutingDataSource routing = routing(5, "");
+        replica.down = true;
+        routing.refreshReplicaStatus();
+        assertEquals("primary", currentNode(lazyProxy(routing), true));
+
+        replica.down = false;
+        routing.refreshReplicaStatus();
+
+        assertEquals("replica", currentNode(lazyProxy(routing), true));
+    }
+
+    @Test
+    void backgroundCheck_detectsUnreachableReplicaWithoutRequests() throws InterruptedException {
+        replica.down = true;
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, Duration.ofMillis(20), 5, "");
+        routing.afterPropertiesSet();
+        try {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (routing.isReplicaAvailable() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(routing.isReplicaAvailable());
+            assertEquals(0, routing.getFallbackCount());
+        } finally {
+            routing.destroy();
+        }
+    }
+}
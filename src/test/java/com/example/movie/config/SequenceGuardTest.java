@@ -0,0 +1,75 @@
+package com.example.movie.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceGuardTest {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    // Nachbildung der von Hibernate auf MySQL angelegten Sequenztabellen
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:sequence_guard;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("drop all objects");
+        jdbc.execute("create table movie (id bigint primary key)");
+        jdbc.execute("create table movie_seq (next_val bigint)");
+        jdbc.update("insert into movie_seq (next_val) values (1)");
+    }
+
+    private long nextVal() {
+        return jdbc.queryForObject("select next_val from movie_seq", Long.class);
+    }
+
+    @Test
+    void existingIds_moveSequencePastMaxId() {
+        jdbc.update("insert into movie (id) values (1), (2), (1234)");
+
+        new SequenceGuard(dataSource).afterSingletonsInstantiated();
+
+        assertEquals(1234 + SequenceGuard.ALLOCATION_SIZE + 1, nextVal());
+    }
+
+    @Test
+    void sequenceAlreadyAhead_isNotLowered() {
+        jdbc.update("insert into movie (id) values (10)");
+        jdbc.update("update movie_seq set next_val = 5000");
+
+        new SequenceGuard(dataSource).afterSingletonsInstantiated();
+
+        assertEquals(5000, nextVal());
+    }
+
+    @Test
+    void emptyTable_leavesFreshSequenceUntouched() {
+        new SequenceGuard(dataSource).afterSingletonsInstantiated();
+
+        assertEquals(1, nextVal());
+    }
+
+    @Test
+    void nextBlockAlreadyPastMaxId_isNotRaised() {
+        jdbc.update("insert into movie (id) values (10)");
+        jdbc.update("update movie_seq set next_val = ?", 10 + SequenceGuard.ALLOCATION_SIZE);
+
+        new SequenceGuard(dataSource).afterSingletonsInstantiated();
+
+        assertEquals(10 + SequenceGuard.ALLOCATION_SIZE, nextVal());
+    }
+
+    @Test
+    void missingSequenceTable_isIgnored() {
+        jdbc.execute("drop table movie_seq");
+        jdbc.update("insert into movie (id) values (10)");
+
+        assertDoesNotThrow(() -> new SequenceGuard(dataSource).afterSingletonsInstantiated());
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.movie.controller;
 
+import com.example.movie.dto.PatchedMovie;
 import com.example.movie.model.Movie;
+import com.example.movie.service.MovieResponseCache;
 import com.example.movie.service.MovieService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -34,6 +36,9 @@ class MovieControllerSecurityTest {
     @org.springframework.boot.test.mock.mockito.MockBean
     private MovieService movieService;
 
+    @org.springframework.boot.test.mock.mockito.MockBean
+    private MovieResponseCache movieResponseCache;
+
     private String toJson(Movie m) {
         return String.format(
                 "{\"id\":%d,\"title\":\"%s\",\"genre\":\"%s\",\"releaseDate\":\"%s\",\"ageRating\":%d,\"averageRating\":%.1f,\"recommended\":%s}",
@@ -287,7 +292,7 @@ class MovieControllerSecurityTest {
         void update_AsAdmin_Exists_ShouldReturn200() throws Exception {
             Movie m = createSampleMovie(3L);
             String payload = toJson(m);
-            when(movieService.updateMovie(eq(3L), any(Movie.class))).thenReturn(m);
+            when(movieService.updateMovie(eq(3L), any(Movie.class), isNull())).thenReturn(m);
 
             mockMvc.perform(put("/api/movies/3")
                             .contentType(MediaType.APPLICATION_JSON)
@@ -295,7 +300,7 @@ class MovieControllerSecurityTest {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.id", is(3)));
 
-            verify(movieService, times(1)).updateMovie(eq(3L), any(Movie.class));
+            verify(movieService, times(1)).updateMovie(eq(3L), any(Movie.class), isNull());
         }
 
         @Test
@@ -304,7 +309,7 @@ class MovieControllerSecurityTest {
         void update_AsAdmin_NotFound_ShouldReturn404() throws Exception {
             Movie m = createSampleMovie(99L);
             String payload = toJson(m);
-            when(movieService.updateMovie(eq(99L), any(Movie.class)))
+            when(movieService.updateMovie(eq(99L), any(Movie.class), isNull()))
                     .thenThrow(new RuntimeException("nicht gefunden"));
 
             mockMvc.perform(put("/api/movies/99")
@@ -312,7 +317,7 @@ class MovieControllerSecurityTest {
                             .content(payload))
                     .andExpect(status().isNotFound());
 
-            verify(movieService, times(1)).updateMovie(eq(99L), any(Movie.class));
+            verify(movieService, times(1)).updateMovie(eq(99L), any(Movie.class), isNull());
         }
 
         @Test
@@ -327,7 +332,7 @@ class MovieControllerSecurityTest {
                             .content(payload))
                     .andExpect(status().isForbidden());
 
-            verify(movieService, never()).updateMovie(anyLong(), any(Movie.class));
+            verify(movieService, never()).updateMovie(anyLong(), any(Movie.class), any());
         }
 
         @Test
@@ -341,7 +346,36 @@ class MovieControllerSecurityTest {
                             .content(payload))
                     .andExpect(status().isUnauthorized());
 
-            verify(movieService, never()).updateMovie(anyLong(), any(Movie.class));
+            verify(movieService, never()).updateMovie(anyLong(), any(Movie.class), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("PATCH‐Endpunkt: nur ADMIN, USER=403")
+    class PatchEndpoint {
+
+        @Test
+        @DisplayName("PATCH /api/movies/{id} ‒ als ADMIN → 200")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void patch_AsAdmin_ShouldReturn200() throws Exception {
+            when(movieService.patchMovie(eq(3L), any(), isNull())).thenReturn(new PatchedMovie(createSampleMovie(3L), 0));
+
+            mockMvc.perform(patch("/api/movies/3")
+                            .contentType("application/merge-patch+json")
+                            .content("{\"recommended\":true}"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("PATCH /api/movies/{id} ‒ als USER → 403 Forbidden")
+        @WithMockUser(username = "user", roles = {"USER"})
+        void patch_AsUser_ShouldReturn403() throws Exception {
+            mockMvc.perform(patch("/api/movies/3")
+                            .contentType("application/merge-patch+json")
+                            .content("{\"recommended\":true}"))
+                    .andExpect(status().isForbidden());
+
+            verify(movieService, never()).patchMovie(anyLong(), any(), any());
         }
     }
 
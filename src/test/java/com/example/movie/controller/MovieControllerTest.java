@@ -1,8 +1,23 @@
 package com.example.movie.controller;
 
+import com.example.movie.config.WebConfig;
+import com.example.movie.dto.MovieCursorPage;
+import com.example.movie.dto.MovieSummary;
+import com.example.movie.dto.MovieVersion;
+import com.example.movie.dto.PatchedMovie;
+import com.example.movie.dto.RatingDistribution;
+import com.example.movie.dto.UpsertResult;
+import com.example.movie.exception.MovieNotFoundException;
+import com.example.movie.exception.PreconditionFailedException;
+import com.example.movie.index.MovieRankingIndex;
+import com.example.movie.model.RatingHistogram;
 import com.example.movie.model.Movie;
+import com.example.movie.service.MovieResponseCache;
 import com.example.movie.service.MovieService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -10,18 +25,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +63,9 @@ class MovieControllerTest {
     @MockBean
     private MovieService movieService;
 
+    @MockBean
+    private MovieResponseCache movieResponseCache;
+
     private Movie createSampleMovie(Long id) {
         Movie m = new Movie();
         m.setId(id);
@@ -51,6 +78,9 @@ class MovieControllerTest {
         return m;
     }
 
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
     private String toJson(Movie m) throws Exception {
         return objectMapper.writeValueAsString(m);
     }
@@ -73,6 +103,101 @@ class MovieControllerTest {
                     .andExpect(jsonPath("$[1].title", is("Inception")));
         }
 
+        @Test
+        @DisplayName("GET /api/movies?view=summary ‒ liefert Zusammenfassungen ohne Reviews")
+        void getAll_SummaryView_ShouldReturnSummaries() throws Exception {
+            when(movieService.getAllMovieSummaries())
+                    .thenReturn(List.of(new MovieSummary(1L, "Inception", "Sci-Fi", 4.5, true, 2)));
+
+            mockMvc.perform(get("/api/movies").param("view", "summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].title", is("Inception")))
+                    .andExpect(jsonPath("$[0].reviewCount", is(2)))
+                    .andExpect(jsonPath("$[0].reviews").doesNotExist());
+            verify(movieService, never()).getAllMovies();
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/filter/genre?view=summary ‒ liefert Zusammenfassungen")
+        void filterGenre_SummaryView_ShouldReturnSummaries() throws Exception {
+            when(movieService.getMovieSummariesByGenre("sci"))
+                    .thenReturn(List.of(new MovieSummary(1L, "Inception", "Sci-Fi", 4.5, true, 2)));
+
+            mockMvc.perform(get("/api/movies/filter/genre").param("genre", "sci").param("view", "summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id", is(1)));
+            verify(movieService, never()).getMoviesByGenre(anyString());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies?limit=2 ‒ liefert Seite + nextCursor")
+        void getPage_ShouldReturnItemsAndCursor() throws Exception {
+            MovieCursorPage<Movie> page = new MovieCursorPage<>(
+                    Arrays.asList(createSampleMovie(1L), createSampleMovie(2L)), "Mg");
+            when(movieService.getMoviesAfter(null, 2)).thenReturn(page);
+
+            mockMvc.perform(get("/api/movies").param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(2)))
+                    .andExpect(jsonPath("$.nextCursor", is("Mg")));
+        }
+
+        @Test
+        @DisplayName("GET /api/movies?limit=2&view=summary ‒ liefert Seite mit Zusammenfassungen")
+        void getPage_SummaryView_ShouldReturnSummaries() throws Exception {
+            MovieCursorPage<MovieSummary> page = new MovieCursorPage<>(
+                    List.of(new MovieSummary(1L, "Inception", "Sci-Fi", 4.5, true, 2)), null);
+            when(movieService.getMovieSummariesAfter(null, 2)).thenReturn(page);
+
+            mockMvc.perform(get("/api/movies").param("limit", "2").param("view", "summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].id", is(1)))
+                    .andExpect(jsonPath("$.items[0].reviews").doesNotExist());
+            verify(movieService, never()).getMoviesAfter(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies?after=x&limit=2 ‒ ungültiger Cursor → 400")
+        void getPage_InvalidCursor_ShouldReturn400() throws Exception {
+            when(movieService.getMoviesAfter("x", 2)).thenThrow(new IllegalArgumentException("Ungültiger Cursor: x"));
+
+            mockMvc.perform(get("/api/movies").param("after", "x").param("limit", "2"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/export ‒ liefert NDJSON, eine Zeile pro Film")
+        void export_ShouldStreamNdjson() throws Exception {
+            doAnswer(inv -> {
+                Consumer<Movie> consumer = inv.getArgument(0);
+                consumer.accept(createSampleMovie(1L));
+                consumer.accept(createSampleMovie(2L));
+                return null;
+            }).when(movieService).exportMovies(any());
+
+            String body = mockMvc.perform(get("/api/movies/export"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertEquals(2, lines.length);
+            assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+            assertEquals(2L, objectMapper.readTree(lines[1]).get("id").asLong());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/search?q=inception ‒ liefert Treffer")
+        void search_ShouldReturnRankedMovies() throws Exception {
+            when(movieService.searchMovies("inception", 0, 20)).thenReturn(List.of(createSampleMovie(4L)));
+
+            mockMvc.perform(get("/api/movies/search").param("q", "inception"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].id", is(4)));
+        }
+
         @Test
         @DisplayName("GET /api/movies/{id} ‒ existent → 200 + Movie")
         void getById_Exists_ShouldReturn200() throws Exception {
@@ -86,6 +211,94 @@ class MovieControllerTest {
                     .andExpect(jsonPath("$.title", is("Inception")));
         }
 
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ liefert schwaches ETag aus Film- und Review-Version")
+        void getById_ShouldReturnWeakETag() throws Exception {
+            when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(new MovieVersion(4, 7)));
+            when(movieService.getMovieById(1L)).thenReturn(Optional.of(createSampleMovie(1L)));
+
+            mockMvc.perform(get("/api/movies/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"4-7\""))
+                    .andExpect(jsonPath("$.version").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ If-None-Match passt → 304 ohne den Film zu laden")
+        void getById_NotModified_ShouldReturn304WithoutLoading() throws Exception {
+            when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(new MovieVersion(4, 7)));
+
+            mockMvc.perform(get("/api/movies/1").header(HttpHeaders.IF_NONE_MATCH, "W/\"4-7\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+
+            verify(movieService, never()).getMovieById(anyLong());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ veraltetes ETag → 200 + neues ETag")
+        void getById_StaleETag_ShouldReturn200() throws Exception {
+            when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(new MovieVersion(5, 7)));
+            when(movieService.getMovieById(1L)).thenReturn(Optional.of(createSampleMovie(1L)));
+
+            mockMvc.perform(get("/api/movies/1").header(HttpHeaders.IF_NONE_MATCH, "W/\"4-7\""))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"5-7\""));
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ Cache-Treffer → vorserialisierte Bytes ohne den Film zu laden")
+        void getById_CacheHit_ShouldServeCachedBytes() throws Exception {
+            MovieVersion version = new MovieVersion(4, 7);
+            byte[] json = "{\"id\":1,\"title\":\"Aus dem Cache\"}".getBytes(StandardCharsets.UTF_8);
+            when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(version));
+            when(movieResponseCache.get(1L, version)).thenReturn(MovieResponseCache.Entry.of(version, json));
+
+            mockMvc.perform(get("/api/movies/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"4-7\""))
+                    .andExpect(jsonPath("$.title", is("Aus dem Cache")));
+
+            verify(movieService, never()).getMovieById(anyLong());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ Cache-Fehlzugriff → serialisiert einmal und legt die Bytes ab")
+        void getById_CacheMiss_ShouldStoreSerializedBytes() throws Exception {
+            MovieVersion version = new MovieVersion(4, 7);
+            Movie m = createSampleMovie(1L);
+            when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(version));
+            when(movieService.getMovieById(1L)).thenReturn(Optional.of(m));
+
+            mockMvc.perform(get("/api/movies/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title", is("Inception")));
+
+            verify(movieResponseCache).put(eq(1L), argThat(entry -> entry.version().equals(version)
+                    && new String(entry.json(), StandardCharsets.UTF_8).contains("\"title\":\"Inception\"")));
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ Accept-Encoding gzip → komprimierte Bytes aus dem Cache")
+        void getById_AcceptsGzip_ShouldServeCompressedBytes() throws Exception {
+            MovieVersion version = new MovieVersion(4, 7);
+            byte[] json = ("{\"id\":1,\"title\":\"" + "x".repeat(2_000) + "\"}").getBytes(StandardCharsets.UTF_8);
+            MovieResponseCache.Entry entry = MovieResponseCache.Entry.of(version, json);
+            when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(version));
+            when(movieResponseCache.get(1L, version)).thenReturn(entry);
+
+            mockMvc.perform(get("/api/movies/1").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andExpect(content().bytes(entry.gzip()));
+
+            mockMvc.perform(get("/api/movies/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(content().bytes(json));
+        }
+
         @Test
         @DisplayName("GET /api/movies/{id} ‒ nicht existent → 404")
         void getById_NotFound_ShouldReturn404() throws Exception {
@@ -95,6 +308,87 @@ class MovieControllerTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ Accept CBOR → binäre Antwort ohne den JSON-Cache")
+        void getById_AcceptCbor_ShouldReturnCborBypassingCache() throws Exception {
+            when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(new MovieVersion(4, 7)));
+            when(movieService.getMovieById(1L)).thenReturn(Optional.of(createSampleMovie(1L)));
+
+            byte[] body = mockMvc.perform(get("/api/movies/1").accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"4-7\""))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            JsonNode movie = cborMapper.readTree(body);
+            assertEquals("Inception", movie.get("title").asText());
+            assertEquals("2010-07-16", movie.get("releaseDate").asText());
+            verify(movieResponseCache, never()).get(anyLong(), any());
+            verify(movieResponseCache, never()).put(anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id} ‒ Accept */* → weiterhin JSON")
+        void getById_AcceptAny_ShouldReturnJson() throws Exception {
+            when(movieService.getMovieById(1L)).thenReturn(Optional.of(createSampleMovie(1L)));
+
+            mockMvc.perform(get("/api/movies/1").accept(MediaType.ALL))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.title", is("Inception")));
+        }
+
+        @Test
+        @DisplayName("GET /api/movies ‒ Accept Smile → binäre Liste")
+        void getAll_AcceptSmile_ShouldReturnSmile() throws Exception {
+            when(movieService.getAllMovies()).thenReturn(List.of(createSampleMovie(1L), createSampleMovie(2L)));
+
+            byte[] body = mockMvc.perform(get("/api/movies").accept(WebConfig.APPLICATION_SMILE))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(WebConfig.APPLICATION_SMILE))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            JsonNode movies = smileMapper.readTree(body);
+            assertEquals(2, movies.size());
+            assertEquals(2, movies.get(1).get("id").asInt());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id}/ratings/histogram ‒ liefert Verteilung")
+        void getRatingHistogram_ShouldReturnDistribution() throws Exception {
+            RatingHistogram histogram = RatingHistogram.empty().withRating(4).withRating(8);
+            when(movieService.getRatingDistribution(1L))
+                    .thenReturn(Optional.of(RatingDistribution.of(1L, 6.0, histogram)));
+
+            mockMvc.perform(get("/api/movies/1/ratings/histogram"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total", is(2)))
+                    .andExpect(jsonPath("$.buckets['4']", is(1)))
+                    .andExpect(jsonPath("$.median", is(6.0)));
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/{id}/ratings/histogram ‒ nicht existent → 404")
+        void getRatingHistogram_NotFound_ShouldReturn404() throws Exception {
+            when(movieService.getRatingDistribution(42L)).thenReturn(Optional.empty());
+
+            mockMvc.perform(get("/api/movies/42/ratings/histogram"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("GET /api/movies/top?genre=drama&limit=5 ‒ liefert Rangliste")
+        void getTop_ShouldReturnRankedMovies() throws Exception {
+            when(movieService.getTopMovies("drama", 5)).thenReturn(List.of(
+                    new MovieRankingIndex.RankedMovie(3L, "Inception", "Drama", 9.0, 40, 8.7)));
+
+            mockMvc.perform(get("/api/movies/top").param("genre", "drama").param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].id", is(3)))
+                    .andExpect(jsonPath("$[0].weightedRating", is(8.7)));
+        }
+
         @Test
         @DisplayName("GET /api/movies/exists/{id} ‒ liefert boolean")
         void existsById_ShouldReturnBoolean() throws Exception {
@@ -169,6 +463,95 @@ class MovieControllerTest {
                     .andExpect(jsonPath("$", hasSize(2)))
                     .andExpect(jsonPath("$[1].id", is(2)));
         }
+
+        @Test
+        @DisplayName("POST /api/movies/batch ‒ CBOR-Body und -Antwort")
+        void createBatch_Cbor_ShouldReadAndWriteCbor() throws Exception {
+            List<Movie> list = Arrays.asList(createSampleMovie(1L), createSampleMovie(2L));
+            byte[] payload = cborMapper.writeValueAsBytes(objectMapper.readTree("[" + toJson(list.get(0)) + ","
+                    + toJson(list.get(1)) + "]"));
+            when(movieService.createMovies(anyList())).thenReturn(list);
+
+            byte[] body = mockMvc.perform(post("/api/movies/batch")
+                            .contentType(MediaType.APPLICATION_CBOR)
+                            .accept(MediaType.APPLICATION_CBOR)
+                            .content(payload))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertEquals(2, cborMapper.readTree(body).size());
+            verify(movieService).createMovies(argThat(movies -> movies.size() == 2
+                    && "Inception".equals(movies.get(0).getTitle())
+                    && LocalDate.of(2010, 7, 16).equals(movies.get(1).getReleaseDate())));
+        }
+
+        @Test
+        @DisplayName("POST /api/movies ‒ Titel und Veröffentlichungsdatum schon vergeben → 409")
+        void create_DuplicateKey_ShouldReturn409() throws Exception {
+            when(movieService.createMovie(any(Movie.class)))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry for key uk_movie_title_release_date"));
+
+            mockMvc.perform(post("/api/movies")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(createSampleMovie(7L))))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.status", is(409)));
+        }
+
+        @Test
+        @DisplayName("POST /api/movies/batch ‒ Titel und Veröffentlichungsdatum schon vergeben → 409")
+        void createBatch_DuplicateKey_ShouldReturn409() throws Exception {
+            when(movieService.createMovies(anyList()))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry for key uk_movie_title_release_date"));
+
+            mockMvc.perform(post("/api/movies/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[" + toJson(createSampleMovie(1L)) + "]"))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.status", is(409)));
+        }
+
+        @Test
+        @DisplayName("POST /api/movies/upsert ‒ liefert 200 + Anzahl neu/geändert/unverändert")
+        void upsert_ShouldReturnCounts() throws Exception {
+            String payload = "[" + toJson(createSampleMovie(1L)) + "," + toJson(createSampleMovie(2L)) + "]";
+            when(movieService.upsertMovies(anyList())).thenReturn(new UpsertResult(1, 0, 1));
+
+            mockMvc.perform(post("/api/movies/upsert")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(payload))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.inserted", is(1)))
+                    .andExpect(jsonPath("$.updated", is(0)))
+                    .andExpect(jsonPath("$.unchanged", is(1)));
+        }
+
+        @Test
+        @DisplayName("POST /api/movies/upsert ‒ ohne Veröffentlichungsdatum → 400")
+        void upsert_MissingKey_ShouldReturn400() throws Exception {
+            String payload = "[" + toJson(createSampleMovie(1L)) + "]";
+            when(movieService.upsertMovies(anyList())).thenThrow(new IllegalArgumentException("Schlüssel fehlt"));
+
+            mockMvc.perform(post("/api/movies/upsert")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(payload))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Schlüssel fehlt"));
+        }
+
+        @Test
+        @DisplayName("POST /api/movies/upsert ‒ Schlüssel kollidiert trotz Wiederholung → 409")
+        void upsert_ConcurrentInsert_ShouldReturn409() throws Exception {
+            String payload = "[" + toJson(createSampleMovie(1L)) + "]";
+            when(movieService.upsertMovies(anyList()))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry for key uk_movie_title_release_date"));
+
+            mockMvc.perform(post("/api/movies/upsert")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(payload))
+                    .andExpect(status().isConflict());
+        }
     }
 
     @Nested
@@ -180,7 +563,7 @@ class MovieControllerTest {
         void update_Exists_ShouldReturnUpdatedMovie() throws Exception {
             Movie m = createSampleMovie(3L);
             String payload = toJson(m);
-            when(movieService.updateMovie(eq(3L), any(Movie.class))).thenReturn(m);
+            when(movieService.updateMovie(eq(3L), any(Movie.class), isNull())).thenReturn(m);
 
             mockMvc.perform(put("/api/movies/3")
                             .contentType(MediaType.APPLICATION_JSON)
@@ -196,7 +579,7 @@ class MovieControllerTest {
         void update_NotFound_ShouldReturn404() throws Exception {
             Movie m = createSampleMovie(99L);
             String payload = toJson(m);
-            when(movieService.updateMovie(eq(99L), any(Movie.class)))
+            when(movieService.updateMovie(eq(99L), any(Movie.class), isNull()))
                     .thenThrow(new RuntimeException("nicht gefunden"));
 
             mockMvc.perform(put("/api/movies/99")
@@ -204,6 +587,140 @@ class MovieControllerTest {
                             .content(payload))
                     .andExpect(status().isNotFound());
         }
+
+        @Test
+        @DisplayName("PUT /api/movies/{id} ‒ If-Match wird als erwartete Version übergeben")
+        void update_IfMatch_ShouldPassExpectedVersion() throws Exception {
+            Movie m = createSampleMovie(3L);
+            when(movieService.updateMovie(eq(3L), any(Movie.class), eq(new MovieVersion(4, 7)))).thenReturn(m);
+
+            mockMvc.perform(put("/api/movies/3")
+                            .header(HttpHeaders.IF_MATCH, "W/\"4-7\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(m)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("PUT /api/movies/{id} ‒ If-Match veraltet → 412")
+        void update_IfMatchStale_ShouldReturn412() throws Exception {
+            Movie m = createSampleMovie(3L);
+            when(movieService.updateMovie(eq(3L), any(Movie.class), eq(new MovieVersion(4, 7))))
+                    .thenThrow(new PreconditionFailedException("Movie", 3L));
+
+            mockMvc.perform(put("/api/movies/3")
+                            .header(HttpHeaders.IF_MATCH, "W/\"4-7\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(m)))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.status", is(412)));
+        }
+
+        @Test
+        @DisplayName("PUT /api/movies/{id} ‒ Titel und Veröffentlichungsdatum schon vergeben → 409 statt 404")
+        void update_DuplicateKey_ShouldReturn409() throws Exception {
+            Movie m = createSampleMovie(3L);
+            when(movieService.updateMovie(eq(3L), any(Movie.class), isNull()))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry for key uk_movie_title_release_date"));
+
+            mockMvc.perform(put("/api/movies/3")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(m)))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.status", is(409)));
+        }
+
+        @Test
+        @DisplayName("PUT /api/movies/{id} ‒ paralleles Schreiben → 409 statt 404")
+        void update_VersionConflict_ShouldReturn409() throws Exception {
+            Movie m = createSampleMovie(3L);
+            when(movieService.updateMovie(eq(3L), any(Movie.class), eq(new MovieVersion(4, 7))))
+                    .thenThrow(new ObjectOptimisticLockingFailureException(Movie.class, 3L));
+
+            mockMvc.perform(put("/api/movies/3")
+                            .header(HttpHeaders.IF_MATCH, "W/\"4-7\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(m)))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.status", is(409)));
+        }
+    }
+
+    @Nested
+    @DisplayName("PATCH‐Endpunkt")
+    class PatchEndpoint {
+
+        @Test
+        @DisplayName("PATCH /api/movies/{id} ‒ Merge Patch → 200 + Zusammenfassung ohne Reviews")
+        void patch_ShouldReturnSummary() throws Exception {
+            Movie m = createSampleMovie(3L);
+            m.setRecommended(false);
+            when(movieService.patchMovie(eq(3L), any(JsonNode.class), isNull())).thenReturn(new PatchedMovie(m, 0));
+
+            mockMvc.perform(patch("/api/movies/3")
+                            .contentType("application/merge-patch+json")
+                            .content("{\"recommended\":false}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(3)))
+                    .andExpect(jsonPath("$.recommended", is(false)))
+                    .andExpect(jsonPath("$.reviews").doesNotExist());
+
+            verify(movieService).patchMovie(eq(3L),
+                    argThat(node -> node.size() == 1 && !node.get("recommended").asBoolean()), isNull());
+        }
+
+        @Test
+        @DisplayName("PATCH /api/movies/{id} ‒ If-Match mit Film- und Review-Version, neuer ETag in der Antwort")
+        void patch_IfMatch_ShouldPassCompositeVersionAndReturnEtag() throws Exception {
+            Movie m = createSampleMovie(3L);
+            m.setVersion(5);
+            when(movieService.patchMovie(eq(3L), any(JsonNode.class), eq(new MovieVersion(4, 9))))
+                    .thenReturn(new PatchedMovie(m, 9));
+
+            mockMvc.perform(patch("/api/movies/3")
+                            .header(HttpHeaders.IF_MATCH, "W/\"4-9\"")
+                            .contentType("application/merge-patch+json")
+                            .content("{\"recommended\":false}"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"5-9\""));
+        }
+
+        @Test
+        @DisplayName("PATCH /api/movies/{id} ‒ If-Match veraltet → 412")
+        void patch_IfMatchStale_ShouldReturn412() throws Exception {
+            when(movieService.patchMovie(eq(3L), any(JsonNode.class), eq(new MovieVersion(4, 8))))
+                    .thenThrow(new PreconditionFailedException("Movie", 3L));
+
+            mockMvc.perform(patch("/api/movies/3")
+                            .header(HttpHeaders.IF_MATCH, "W/\"4-8\"")
+                            .contentType("application/merge-patch+json")
+                            .content("{\"recommended\":false}"))
+                    .andExpect(status().isPreconditionFailed());
+        }
+
+        @Test
+        @DisplayName("PATCH /api/movies/{id} ‒ unzulässiges Feld → 400")
+        void patch_InvalidField_ShouldReturn400() throws Exception {
+            when(movieService.patchMovie(eq(3L), any(JsonNode.class), isNull()))
+                    .thenThrow(new IllegalArgumentException("Feld reviews kann nicht per PATCH geändert werden"));
+
+            mockMvc.perform(patch("/api/movies/3")
+                            .contentType("application/merge-patch+json")
+                            .content("{\"reviews\":[]}"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("PATCH /api/movies/{id} ‒ nicht existent → 404")
+        void patch_NotFound_ShouldReturn404() throws Exception {
+            when(movieService.patchMovie(eq(99L), any(JsonNode.class), isNull()))
+                    .thenThrow(new MovieNotFoundException(99L));
+
+            mockMvc.perform(patch("/api/movies/99")
+                            .contentType("application/merge-patch+json")
+                            .content("{\"title\":\"Neu\"}"))
+                    .andExpect(status().isNotFound());
+        }
     }
 
     @Nested
@@ -0,0 +1,281 @@
+package com.example.movie.controller;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.example.movie.service.MovieService;
+import com.example.movie.service.ReviewService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querycount;MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+@AutoConfigureMockMvc
+@WithMockUser(username = "user", roles = {"USER"})
+class MovieQueryCountTest {
+
+    private static final int MOVIES = 20;
+    private static final int REVIEWS_PER_MOVIE = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    private List<Movie> created;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        movieService.deleteAll();
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < MOVIES; i++) {
+            Movie m = new Movie();
+            m.setTitle("Movie " + i);
+            m.setGenre("Drama");
+            m.setReleaseDate(LocalDate.of(2020, 1, 1));
+            m.setRecommended(true);
+            for (int j = 0; j < REVIEWS_PER_MOVIE; j++) {
+                Review r = new Review();
+                r.setUsername("user" + j);
+                r.setComment("Comment " + j);
+                r.setRating(5);
+                r.setMovie(m);
+                m.getReviews().add(r);
+            }
+            movies.add(m);
+        }
+        created = movieService.createMovies(movies);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request)
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("GET /api/movies ‒ Filme samt Reviews in einer Abfrage")
+    void getAll_loadsReviewsWithSingleQuery() throws Exception {
+        mockMvc.perform(get("/api/movies"))
+                .andExpect(jsonPath("$", hasSize(MOVIES)))
+                .andExpect(jsonPath("$[0].reviews", hasSize(REVIEWS_PER_MOVIE)));
+
+        assertEquals(1, statementsFor(get("/api/movies")));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/filter/recommended ‒ eine Abfrage")
+    void getByRecommended_loadsReviewsWithSingleQuery() throws Exception {
+        assertEquals(1, statementsFor(get("/api/movies/filter/recommended").param("recommended", "true")));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/filter/genre ‒ eine Abfrage")
+    void getByGenre_loadsReviewsWithSingleQuery() throws Exception {
+        assertEquals(1, statementsFor(get("/api/movies/filter/genre").param("genre", "drama")));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies?limit= ‒ Seite plus eine gebündelte Review-Abfrage")
+    void getPage_batchFetchesReviews() throws Exception {
+        assertEquals(2, statementsFor(get("/api/movies").param("limit", String.valueOf(MOVIES))));
+    }
+
+    @Test
+    @DisplayName("GET /api/movies?view=summary ‒ eine Abfrage ohne Reviews")
+    void getAllSummaries_singleProjectionQuery() throws Exception {
+        mockMvc.perform(get("/api/movies").param("view", "summary"))
+                .andExpect(jsonPath("$", hasSize(MOVIES)))
+                .andExpect(jsonPath("$[0].reviewCount", is(REVIEWS_PER_MOVIE)))
+                .andExpect(jsonPath("$[0].reviews").doesNotExist());
+
+        assertEquals(1, statementsFor(get("/api/movies").param("view", "summary")));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("GET /api/movies/{id} mit passendem If-None-Match ‒ 304 nach einer Versionsabfrage")
+    void getById_notModified_checksVersionOnly() throws Exception {
+        String uri = "/api/movies/" + created.get(0).getId();
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        statistics.clear();
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    @Test
+    @DisplayName("Kommentar einer Review geändert ‒ ETag von Film und Review-Liste ändert sich")
+    void reviewCommentChange_changesETag() throws Exception {
+        Movie movie = created.get(0);
+        String movieUri = "/api/movies/" + movie.getId();
+        String before = mockMvc.perform(get(movieUri)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String reviewsBefore = mockMvc.perform(get("/api/reviews").param("movieId", String.valueOf(movie.getId())))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Review review = movie.getReviews().get(0);
+        Review changed = new Review();
+        changed.setUsername(review.getUsername());
+        changed.setComment("Geänderter Kommentar");
+        changed.setRating(review.getRating());
+        reviewService.updateReview(review.getId(), changed);
+
+        mockMvc.perform(get(movieUri).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews[?(@.comment == 'Geänderter Kommentar')]", hasSize(1)));
+        mockMvc.perform(get("/api/reviews").param("movieId", String.valueOf(movie.getId()))
+                        .header(HttpHeaders.IF_NONE_MATCH, reviewsBefore))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    @DisplayName("PATCH /api/movies/{id} mit If-Match ‒ neuer ETag entspricht dem folgenden GET, alter ergibt 412")
+    void patch_ifMatch_returnsETagOfNextGet() throws Exception {
+        String movieUri = "/api/movies/" + created.get(0).getId();
+        String before = mockMvc.perform(get(movieUri)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String after = mockMvc.perform(patch(movieUri)
+                        .header(HttpHeaders.IF_MATCH, before)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"ageRating\":16}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertEquals(after, mockMvc.perform(get(movieUri)).andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(patch(movieUri)
+                        .header(HttpHeaders.IF_MATCH, before)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"ageRating\":18}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    @DisplayName("PUT /api/movies/{id} ohne reviews ‒ vorhandene Reviews bleiben erhalten")
+    void update_withoutReviews_keepsReviews() throws Exception {
+        String movieUri = "/api/movies/" + created.get(0).getId();
+        mockMvc.perform(put(movieUri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Neuer Titel\",\"genre\":\"Drama\",\"releaseDate\":\"2020-01-01\","
+                                + "\"ageRating\":12,\"recommended\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("Neuer Titel")));
+
+        mockMvc.perform(get(movieUri))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews", hasSize(REVIEWS_PER_MOVIE)))
+                .andExpect(jsonPath("$.reviewCount", is(REVIEWS_PER_MOVIE)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    @DisplayName("POST /api/movies/upsert ‒ set-basiert geschrieben, Reviews und Zähler bleiben erhalten")
+    void upsert_writesWithoutEntityInsertsOrUpdates() throws Exception {
+        long changedId = created.get(0).getId();
+        String before = mockMvc.perform(get("/api/movies/" + changedId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        statistics.clear();
+        mockMvc.perform(post("/api/movies/upsert")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("["
+                                + "{\"title\":\"Movie 0\",\"genre\":\"Drama, Thriller\",\"releaseDate\":\"2020-01-01\","
+                                + "\"ageRating\":16,\"recommended\":true},"
+                                + "{\"title\":\"Movie 1\",\"genre\":\"Drama\",\"releaseDate\":\"2020-01-01\","
+                                + "\"ageRating\":0,\"recommended\":true},"
+                                + "{\"title\":\"Neuer Film\",\"genre\":\"Thriller\",\"releaseDate\":\"2021-05-01\","
+                                + "\"ageRating\":12,\"recommended\":false}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted", is(1)))
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.unchanged", is(1)));
+        // Filme werden per nativem Upsert geschrieben: keine Insert- oder Update-Statements über Movie-Entitäten
+        assertEquals(0, statistics.getEntityStatistics(Movie.class.getName()).getInsertCount());
+        assertEquals(0, statistics.getEntityStatistics(Movie.class.getName()).getUpdateCount());
+
+        mockMvc.perform(get("/api/movies/" + changedId).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ageRating", is(16)))
+                .andExpect(jsonPath("$.reviewCount", is(REVIEWS_PER_MOVIE)))
+                .andExpect(jsonPath("$.reviews", hasSize(REVIEWS_PER_MOVIE)));
+        mockMvc.perform(get("/api/movies/filter/genre").param("genre", "thriller"))
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get("/api/movies").param("view", "summary"))
+                .andExpect(jsonPath("$", hasSize(MOVIES + 1)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    @DisplayName("POST /api/movies/upsert ‒ anders geschriebener Titel aktualisiert den bestehenden Film")
+    void upsert_caseVariantTitle_updatesExistingMovie() throws Exception {
+        long id = created.get(0).getId();
+
+        mockMvc.perform(post("/api/movies/upsert")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\":\"MOVIE 0\",\"genre\":\"Thriller\",\"releaseDate\":\"2020-01-01\","
+                                + "\"ageRating\":18,\"recommended\":true}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted", is(0)))
+                .andExpect(jsonPath("$.updated", is(1)));
+
+        mockMvc.perform(get("/api/movies/" + id))
+                .andExpect(jsonPath("$.title", is("MOVIE 0")))
+                .andExpect(jsonPath("$.ageRating", is(18)))
+                .andExpect(jsonPath("$.reviews", hasSize(REVIEWS_PER_MOVIE)));
+        mockMvc.perform(get("/api/movies/filter/genre").param("genre", "thriller"))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/api/movies").param("view", "summary"))
+                .andExpect(jsonPath("$", hasSize(MOVIES)));
+    }
+}
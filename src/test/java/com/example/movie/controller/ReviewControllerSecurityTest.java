@@ -2,6 +2,7 @@ package com.example.movie.controller;
 
 import com.example.movie.model.Movie;
 import com.example.movie.model.Review;
+import com.example.movie.service.ReviewIngestionQueue;
 import com.example.movie.service.ReviewService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -34,6 +35,9 @@ class ReviewControllerSecurityTest {
     @org.springframework.boot.test.mock.mockito.MockBean
     private ReviewService reviewService;
 
+    @org.springframework.boot.test.mock.mockito.MockBean
+    private ReviewIngestionQueue reviewIngestionQueue;
+
     private String toJson(Review r) {
         Long movieId = r.getMovie() != null ? r.getMovie().getId() : null;
         String movieJson = movieId != null
@@ -266,7 +270,7 @@ class ReviewControllerSecurityTest {
         void update_AsAdmin_Exists_ShouldReturn200() throws Exception {
             Review r = createSampleReview(3L, 50L);
             String payload = toJson(r);
-            when(reviewService.updateReview(eq(3L), any(Review.class))).thenReturn(r);
+            when(reviewService.updateReview(eq(3L), any(Review.class), isNull())).thenReturn(r);
 
             mockMvc.perform(put("/api/reviews/3")
                             .contentType(MediaType.APPLICATION_JSON)
@@ -275,7 +279,7 @@ class ReviewControllerSecurityTest {
                     .andExpect(jsonPath("$.id", is(3)))
                     .andExpect(jsonPath("$.comment", is("Great movie!")));
 
-            verify(reviewService, times(1)).updateReview(eq(3L), any(Review.class));
+            verify(reviewService, times(1)).updateReview(eq(3L), any(Review.class), isNull());
         }
 
         @Test
@@ -284,7 +288,7 @@ class ReviewControllerSecurityTest {
         void update_AsAdmin_NotFound_ShouldReturn404() throws Exception {
             Review r = createSampleReview(99L, 60L);
             String payload = toJson(r);
-            when(reviewService.updateReview(eq(99L), any(Review.class)))
+            when(reviewService.updateReview(eq(99L), any(Review.class), isNull()))
                     .thenThrow(new RuntimeException("nicht gefunden"));
 
             mockMvc.perform(put("/api/reviews/99")
@@ -292,7 +296,7 @@ class ReviewControllerSecurityTest {
                             .content(payload))
                     .andExpect(status().isNotFound());
 
-            verify(reviewService, times(1)).updateReview(eq(99L), any(Review.class));
+            verify(reviewService, times(1)).updateReview(eq(99L), any(Review.class), isNull());
         }
 
         @Test
@@ -307,7 +311,7 @@ class ReviewControllerSecurityTest {
                             .content(payload))
                     .andExpect(status().isForbidden());
 
-            verify(reviewService, never()).updateReview(anyLong(), any(Review.class));
+            verify(reviewService, never()).updateReview(anyLong(), any(Review.class), any());
         }
 
         @Test
@@ -321,7 +325,7 @@ class ReviewControllerSecurityTest {
                             .content(payload))
                     .andExpect(status().isUnauthorized());
 
-            verify(reviewService, never()).updateReview(anyLong(), any(Review.class));
+            verify(reviewService, never()).updateReview(anyLong(), any(Review.class), any());
         }
     }
 
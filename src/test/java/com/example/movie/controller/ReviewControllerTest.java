@@ -1,9 +1,16 @@
 package com.example.movie.controller;
 
+import com.example.movie.config.WebConfig;
+import com.example.movie.dto.MovieVersion;
+import com.example.movie.exception.PreconditionFailedException;
 import com.example.movie.model.Movie;
 import com.example.movie.model.Review;
+import com.example.movie.service.ReviewIngestionQueue;
 import com.example.movie.service.ReviewService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -11,15 +18,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -38,6 +49,9 @@ class ReviewControllerTest {
     @MockBean
     private ReviewService reviewService;
 
+    @MockBean
+    private ReviewIngestionQueue reviewIngestionQueue;
+
     private Review createSampleReview(Long id, Long movieId) {
         Review r = new Review();
         r.setId(id);
@@ -50,6 +64,9 @@ class ReviewControllerTest {
         return r;
     }
 
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
     private String toJson(Review r) throws Exception {
         return objectMapper.writeValueAsString(r);
     }
@@ -75,6 +92,20 @@ class ReviewControllerTest {
                     .andExpect(jsonPath("$[1].username", is("testuser")));
         }
 
+        @Test
+        @DisplayName("GET /api/reviews/search?q=great ‒ liefert Treffer")
+        void search_ShouldReturnRankedReviews() throws Exception {
+            when(reviewService.searchReviews("great", 1, 5)).thenReturn(List.of(createSampleReview(3L, 10L)));
+
+            mockMvc.perform(get("/api/reviews/search")
+                            .param("q", "great")
+                            .param("page", "1")
+                            .param("size", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].id", is(3)));
+        }
+
         @Test
         @DisplayName("GET /api/reviews?movieId=10 ‒ liefert gefilterte Liste")
         void getAll_FilterByMovieId_ShouldReturnList() throws Exception {
@@ -90,6 +121,52 @@ class ReviewControllerTest {
                     .andExpect(jsonPath("$[0].rating", is(8)));
         }
 
+        @Test
+        @DisplayName("GET /api/reviews?movieId=10 ‒ If-None-Match passt → 304 ohne Reviews zu laden")
+        void getAll_FilterByMovieId_NotModified_ShouldReturn304() throws Exception {
+            when(reviewService.getMovieVersion(10L)).thenReturn(Optional.of(new MovieVersion(2, 3)));
+
+            mockMvc.perform(get("/api/reviews")
+                            .param("movieId", "10")
+                            .header(HttpHeaders.IF_NONE_MATCH, "W/\"2-3\""))
+                    .andExpect(status().isNotModified());
+
+            verify(reviewService, never()).getReviewsByMovieId(anyLong());
+        }
+
+        @Test
+        @DisplayName("GET /api/reviews?movieId=10 ‒ liefert ETag")
+        void getAll_FilterByMovieId_ShouldReturnETag() throws Exception {
+            when(reviewService.getMovieVersion(10L)).thenReturn(Optional.of(new MovieVersion(2, 3)));
+            when(reviewService.getReviewsByMovieId(10L)).thenReturn(List.of(createSampleReview(3L, 10L)));
+
+            mockMvc.perform(get("/api/reviews")
+                            .param("movieId", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"2-3\""))
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("GET /api/reviews?movieId=10 ‒ Accept CBOR → binäre Liste mit ETag")
+        void getAll_FilterByMovieId_AcceptCbor_ShouldReturnCbor() throws Exception {
+            when(reviewService.getMovieVersion(10L)).thenReturn(Optional.of(new MovieVersion(2, 3)));
+            when(reviewService.getReviewsByMovieId(10L)).thenReturn(List.of(createSampleReview(3L, 10L)));
+
+            byte[] body = mockMvc.perform(get("/api/reviews")
+                            .param("movieId", "10")
+                            .accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"2-3\""))
+                    .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            JsonNode reviews = cborMapper.readTree(body);
+            assertEquals(1, reviews.size());
+            assertEquals("testuser", reviews.get(0).get("username").asText());
+        }
+
         @Test
         @DisplayName("GET /api/reviews/{id} ‒ existent → 200 + Review")
         void getById_Exists_ShouldReturn200() throws Exception {
@@ -101,7 +178,8 @@ class ReviewControllerTest {
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(jsonPath("$.id", is(5)))
                     .andExpect(jsonPath("$.username", is("testuser")))
-                    .andExpect(jsonPath("$.rating", is(8)));
+                    .andExpect(jsonPath("$.rating", is(8)))
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""));
         }
 
         @Test
@@ -161,6 +239,67 @@ class ReviewControllerTest {
             verify(reviewService, times(1)).createReviewsBatch(anyList());
         }
 
+        @Test
+        @DisplayName("POST /api/reviews/batch ‒ Smile-Body und -Antwort")
+        void createBatch_Smile_ShouldReadAndWriteSmile() throws Exception {
+            List<Review> list = Arrays.asList(createSampleReview(1L, 40L), createSampleReview(2L, 40L));
+            byte[] payload = smileMapper.writeValueAsBytes(objectMapper.readTree("[" +
+                    "{\"username\":\"testuser\",\"comment\":\"Great movie!\",\"rating\":8}," +
+                    "{\"username\":\"other\",\"comment\":\"Meh\",\"rating\":3}" +
+                    "]"));
+            when(reviewService.createReviewsBatch(anyList())).thenReturn(list);
+
+            byte[] body = mockMvc.perform(post("/api/reviews/batch")
+                            .contentType(WebConfig.APPLICATION_SMILE)
+                            .accept(WebConfig.APPLICATION_SMILE)
+                            .content(payload))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(WebConfig.APPLICATION_SMILE))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertEquals(2, smileMapper.readTree(body).size());
+            verify(reviewService).createReviewsBatch(argThat(reviews -> reviews.size() == 2
+                    && "other".equals(reviews.get(1).getUsername()) && reviews.get(1).getRating() == 3));
+        }
+
+        @Test
+        @DisplayName("POST /api/reviews/async ‒ in Warteschlange aufgenommen → 202")
+        void createAsync_Accepted_ShouldReturn202() throws Exception {
+            when(reviewIngestionQueue.offer(any(Review.class))).thenReturn(true);
+
+            mockMvc.perform(post("/api/reviews/async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(createSampleReview(null, 30L))))
+                    .andExpect(status().isAccepted());
+
+            verify(reviewService, never()).createReview(any());
+        }
+
+        @Test
+        @DisplayName("POST /api/reviews/async ‒ Warteschlange voll → 429")
+        void createAsync_QueueFull_ShouldReturn429() throws Exception {
+            when(reviewIngestionQueue.offer(any(Review.class))).thenReturn(false);
+
+            mockMvc.perform(post("/api/reviews/async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(toJson(createSampleReview(null, 30L))))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"));
+        }
+
+        @Test
+        @DisplayName("POST /api/reviews/async ‒ ungültiges Review → 400")
+        void createAsync_InvalidRating_ShouldReturn400() throws Exception {
+            String payload = "{\"username\":\"testuser\",\"comment\":\"Great movie!\",\"rating\":11}";
+
+            mockMvc.perform(post("/api/reviews/async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(payload))
+                    .andExpect(status().isBadRequest());
+
+            verify(reviewIngestionQueue, never()).offer(any());
+        }
+
 
         @Nested
         @DisplayName("PUT‐Endpunkt")
@@ -171,7 +310,7 @@ class ReviewControllerTest {
             void update_Exists_ShouldReturnUpdatedReview() throws Exception {
                 Review r = createSampleReview(3L, 50L);
                 String payload = toJson(r);
-                when(reviewService.updateReview(eq(3L), any(Review.class))).thenReturn(r);
+                when(reviewService.updateReview(eq(3L), any(Review.class), isNull())).thenReturn(r);
 
                 mockMvc.perform(put("/api/reviews/3")
                                 .contentType(MediaType.APPLICATION_JSON)
@@ -188,7 +327,7 @@ class ReviewControllerTest {
             void update_NotFound_ShouldReturn404() throws Exception {
                 Review r = createSampleReview(99L, 60L);
                 String payload = toJson(r);
-                when(reviewService.updateReview(eq(99L), any(Review.class)))
+                when(reviewService.updateReview(eq(99L), any(Review.class), isNull()))
                         .thenThrow(new RuntimeException("nicht gefunden"));
 
                 mockMvc.perform(put("/api/reviews/99")
@@ -196,6 +335,108 @@ class ReviewControllerTest {
                                 .content(payload))
                         .andExpect(status().isNotFound());
             }
+
+            @Test
+            @DisplayName("PUT /api/reviews/{id} ‒ gleichzeitig geändert → 409")
+            void update_Conflict_ShouldReturn409() throws Exception {
+                Review r = createSampleReview(3L, 50L);
+                when(reviewService.updateReview(eq(3L), any(Review.class), isNull()))
+                        .thenThrow(new ObjectOptimisticLockingFailureException(Review.class, 3L));
+
+                mockMvc.perform(put("/api/reviews/3")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(toJson(r)))
+                        .andExpect(status().isConflict());
+            }
+
+            @Test
+            @DisplayName("PUT /api/reviews/{id} ‒ If-Match wird als erwartete Version übergeben")
+            void update_IfMatch_ShouldPassExpectedVersion() throws Exception {
+                Review r = createSampleReview(3L, 50L);
+                r.setVersion(5);
+                when(reviewService.updateReview(eq(3L), any(Review.class), eq(4L))).thenReturn(r);
+
+                mockMvc.perform(put("/api/reviews/3")
+                                .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(toJson(r)))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string(HttpHeaders.ETAG, "W/\"5\""));
+            }
+
+            @Test
+            @DisplayName("PUT /api/reviews/{id} ‒ If-Match veraltet → 412")
+            void update_IfMatchStale_ShouldReturn412() throws Exception {
+                Review r = createSampleReview(3L, 50L);
+                when(reviewService.updateReview(eq(3L), any(Review.class), eq(4L)))
+                        .thenThrow(new PreconditionFailedException("Review", 3L));
+
+                mockMvc.perform(put("/api/reviews/3")
+                                .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(toJson(r)))
+                        .andExpect(status().isPreconditionFailed())
+                        .andExpect(jsonPath("$.status", is(412)));
+            }
+        }
+
+        @Nested
+        @DisplayName("PATCH‐Endpunkt")
+        class PatchEndpoint {
+
+            @Test
+            @DisplayName("PATCH /api/reviews/{id} ‒ Merge Patch → 200 + Review")
+            void patch_ShouldReturnReview() throws Exception {
+                Review r = createSampleReview(3L, 50L);
+                when(reviewService.patchReview(eq(3L), any(JsonNode.class), isNull())).thenReturn(r);
+
+                mockMvc.perform(patch("/api/reviews/3")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"comment\":\"kurz\"}"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.id", is(3)));
+            }
+
+            @Test
+            @DisplayName("PATCH /api/reviews/{id} ‒ ungültiger Wert → 400")
+            void patch_Invalid_ShouldReturn400() throws Exception {
+                when(reviewService.patchReview(eq(3L), any(JsonNode.class), isNull()))
+                        .thenThrow(new IllegalArgumentException("Validation Fehler: rating"));
+
+                mockMvc.perform(patch("/api/reviews/3")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"rating\":11}"))
+                        .andExpect(status().isBadRequest());
+            }
+
+            @Test
+            @DisplayName("PATCH /api/reviews/{id} ‒ If-Match wird als erwartete Version übergeben, neuer ETag")
+            void patch_IfMatch_ShouldPassExpectedVersionAndReturnEtag() throws Exception {
+                Review r = createSampleReview(3L, 50L);
+                r.setVersion(5);
+                when(reviewService.patchReview(eq(3L), any(JsonNode.class), eq(4L))).thenReturn(r);
+
+                mockMvc.perform(patch("/api/reviews/3")
+                                .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"comment\":\"kurz\"}"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string(HttpHeaders.ETAG, "W/\"5\""));
+            }
+
+            @Test
+            @DisplayName("PATCH /api/reviews/{id} ‒ If-Match veraltet → 412")
+            void patch_IfMatchStale_ShouldReturn412() throws Exception {
+                when(reviewService.patchReview(eq(3L), any(JsonNode.class), eq(4L)))
+                        .thenThrow(new PreconditionFailedException("Review", 3L));
+
+                mockMvc.perform(patch("/api/reviews/3")
+                                .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                                .contentType("application/merge-patch+json")
+                                .content("{\"comment\":\"kurz\"}"))
+                        .andExpect(status().isPreconditionFailed())
+                        .andExpect(jsonPath("$.status", is(412)));
+            }
         }
 
         @Nested
@@ -0,0 +1,196 @@
+package com.example.movie.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+    }
+
+    private List<Long> ids(InvertedIndex.SearchResult result) {
+        return result.hits().stream().map(InvertedIndex.Hit::id).toList();
+    }
+
+    @Test
+    void tokenize_lowerCasesAndSplitsOnNonAlphanumerics() {
+        assertEquals(List.of("star", "wars", "episode", "iv"), InvertedIndex.tokenize("Star Wars: Episode-IV"));
+        assertTrue(InvertedIndex.tokenize("  ").isEmpty());
+    }
+
+    @Test
+    void search_ranksDocumentsMatchingMoreTermsFirst() {
+        index.index(1L, 0, "The Dark Knight");
+        index.index(2L, 0, "Dark City");
+        index.index(3L, 0, "Knight and Day");
+
+        InvertedIndex.SearchResult result = index.search("dark knight", 0, 10);
+
+        assertEquals(3, result.total());
+        assertEquals(1L, result.hits().get(0).id());
+    }
+
+    @Test
+    void search_isPaginated() {
+        for (long id = 1; id <= 5; id++) {
+            index.index(id, 0, "movie " + id);
+        }
+
+        InvertedIndex.SearchResult page = index.search("movie", 2, 2);
+
+        assertEquals(5, page.total());
+        assertEquals(List.of(3L, 4L), ids(page));
+    }
+
+    @Test
+    void reindex_replacesPreviousTerms() {
+        index.index(1L, 0, "Old Title");
+        index.index(1L, 1, "New Title");
+
+        assertTrue(index.search("old", 0, 10).hits().isEmpty());
+        assertEquals(List.of(1L), ids(index.search("new", 0, 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void index_olderVersion_isIgnored() {
+        index.index(1L, 2, "New Title");
+
+        assertFalse(index.index(1L, 1, "Old Title"));
+        assertEquals(List.of(1L), ids(index.search("new", 0, 10)));
+        assertTrue(index.search("old", 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void index_afterRemove_isIgnored() {
+        index.index(1L, 1, "Title");
+        index.remove(1L);
+
+        assertFalse(index.index(1L, 1, "Title"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void reset_acceptsDocumentsAgain() {
+        index.index(1L, 1, "Title");
+        index.clear();
+        assertFalse(index.index(1L, 1, "Title"));
+
+        index.reset();
+
+        assertTrue(index.index(1L, 1, "Title"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void remove_dropsDocumentFromAllPostingLists() {
+        index.index(1L, 0, "great acting great story");
+        index.index(2L, 0, "great music");
+
+        index.remove(1L);
+
+        assertEquals(List.of(2L), ids(index.search("great story", 0, 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void clear_removesEverything() {
+        index.index(1L, 0, "something");
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertEquals(0, index.search("something", 0, 10).total());
+    }
+
+    @Test
+    void remove_tombstoneExpires_acceptsDocumentAgainAndFreesIt() {
+        long[] now = {0};
+        InvertedIndex timed = new InvertedIndex(() -> now[0]);
+        timed.index(1L, 1, "Title");
+        timed.remove(1L);
+        assertFalse(timed.index(1L, 1, "Title"));
+
+        now[0] += InvertedIndex.TOMBSTONE_TTL_NANOS;
+
+        assertTrue(timed.index(1L, 1, "Title"));
+        assertEquals(0, timed.tombstoneCount());
+    }
+
+    @Test
+    void clear_tombstonesExpireInsteadOfGrowingForever() {
+        long[] now = {0};
+        InvertedIndex timed = new InvertedIndex(() -> now[0]);
+        for (long id = 1; id <= 3; id++) {
+            timed.index(id, 0, "movie " + id);
+        }
+        timed.clear();
+        assertEquals(3, timed.tombstoneCount());
+
+        now[0] += InvertedIndex.TOMBSTONE_TTL_NANOS;
+        timed.remove(99L);
+
+        assertEquals(1, timed.tombstoneCount());
+    }
+
+    @Test
+    void remove_tombstonesAreBounded() {
+        for (long id = 1; id <= InvertedIndex.MAX_TOMBSTONES + 10; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(InvertedIndex.MAX_TOMBSTONES, index.tombstoneCount());
+        // Die ältesten Sperren werden zuerst verworfen
+        assertTrue(index.index(1L, 0, "Title"));
+        assertFalse(index.index(InvertedIndex.MAX_TOMBSTONES + 10L, 0, "Title"));
+    }
+
+    @Test
+    void remove_outOfOrderIds_keepsPostingListsConsistent() {
+        long[] ids = {7, 3, 11, 1, 5};
+        for (long id : ids) {
+            index.index(id, 0, "shared " + id);
+        }
+
+        index.remove(3L);
+        index.remove(11L);
+        index.index(4L, 0, "shared");
+
+        assertEquals(List.of(1L, 4L, 5L, 7L), ids(index.search("shared", 0, 10)).stream().sorted().toList());
+        assertEquals(List.of(5L), ids(index.search("5", 0, 10)));
+    }
+
+    @Test
+    void search_pageBeyondHits_returnsEmptyPageWithTotal() {
+        index.index(1L, 0, "movie");
+        index.index(2L, 0, "movie");
+
+        InvertedIndex.SearchResult page = index.search("movie", 5, 10);
+
+        assertTrue(page.hits().isEmpty());
+        assertEquals(2, page.total());
+    }
+
+    @Test
+    void search_topPageMatchesFullRanking() {
+        for (long id = 1; id <= 50; id++) {
+            index.index(id, 0, id % 3 == 0 ? "star star wars" : id % 2 == 0 ? "star wars" : "star");
+        }
+
+        List<Long> all = ids(index.search("star wars", 0, 50));
+        List<Long> paged = new java.util.ArrayList<>();
+        for (int offset = 0; offset < 50; offset += 7) {
+            paged.addAll(ids(index.search("star wars", offset, 7)));
+        }
+
+        assertEquals(50, all.size());
+        assertEquals(all, paged);
+    }
+}
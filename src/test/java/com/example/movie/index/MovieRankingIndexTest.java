@@ -0,0 +1,150 @@
+package com.example.movie.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieRankingIndexTest {
+
+    private MovieRankingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MovieRankingIndex(5);
+    }
+
+    private static MovieRankingIndex.MovieStats stats(long id, String genre, long ratingSum, int reviewCount) {
+        return stats(id, 0, genre, ratingSum, reviewCount);
+    }
+
+    private static MovieRankingIndex.MovieStats stats(long id, long version, String genre, long ratingSum,
+                                                      int reviewCount) {
+        return new MovieRankingIndex.MovieStats(id, version, "Movie " + id, genre, Set.of(genre), ratingSum,
+                reviewCount);
+    }
+
+    @Test
+    void top_singlePerfectReviewDoesNotBeatManyGoodReviews() {
+        index.put(stats(1L, "drama", 10, 1));
+        index.put(stats(2L, "drama", 9 * 50, 50));
+        index.put(stats(3L, "drama", 3 * 50, 50));
+
+        List<MovieRankingIndex.RankedMovie> top = index.top(3);
+
+        assertEquals(List.of(2L, 1L, 3L), top.stream().map(MovieRankingIndex.RankedMovie::id).toList());
+        assertEquals(10.0, top.get(1).averageRating());
+        assertTrue(top.get(1).weightedRating() < top.get(0).weightedRating());
+    }
+
+    @Test
+    void top_perGenreOnlyContainsThatGenre() {
+        index.put(stats(1L, "drama", 40, 5));
+        index.put(stats(2L, "comedy", 45, 5));
+
+        List<MovieRankingIndex.RankedMovie> drama = index.top("drama", 10);
+
+        assertEquals(1, drama.size());
+        assertEquals(1L, drama.get(0).id());
+        assertTrue(index.top("horror", 10).isEmpty());
+    }
+
+    @Test
+    void put_existingMovie_replacesPreviousPosition() {
+        index.put(stats(1L, "drama", 40, 5));
+        index.put(stats(2L, "drama", 35, 5));
+        index.put(stats(2L, "drama", 50, 5));
+
+        assertEquals(2, index.size());
+        assertEquals(2L, index.top(1).get(0).id());
+    }
+
+    @Test
+    void put_olderVersion_isIgnored() {
+        index.put(stats(1L, 3, "drama", 50, 5));
+
+        assertFalse(index.put(stats(1L, 2, "drama", 10, 5)));
+        assertEquals(10.0, index.top(1).get(0).averageRating());
+    }
+
+    @Test
+    void put_afterRemove_isIgnored() {
+        index.put(stats(1L, 1, "drama", 40, 5));
+        index.remove(1L);
+
+        assertFalse(index.put(stats(1L, 1, "drama", 40, 5)));
+        assertTrue(index.top(10).isEmpty());
+    }
+
+    @Test
+    void remove_tombstoneExpires_acceptsMovieAgainAndFreesIt() {
+        long[] now = {0};
+        MovieRankingIndex timed = new MovieRankingIndex(5, () -> now[0]);
+        timed.put(stats(1L, 1, "drama", 40, 5));
+        timed.remove(1L);
+        assertFalse(timed.put(stats(1L, 1, "drama", 40, 5)));
+
+        now[0] += MovieRankingIndex.TOMBSTONE_TTL_NANOS;
+
+        assertTrue(timed.put(stats(1L, 1, "drama", 40, 5)));
+        assertEquals(0, timed.tombstoneCount());
+    }
+
+    @Test
+    void clear_tombstonesExpireInsteadOfGrowingForever() {
+        long[] now = {0};
+        MovieRankingIndex timed = new MovieRankingIndex(5, () -> now[0]);
+        for (long id = 1; id <= 3; id++) {
+            timed.put(stats(id, "drama", 40, 5));
+        }
+        timed.clear();
+        assertEquals(3, timed.tombstoneCount());
+
+        now[0] += MovieRankingIndex.TOMBSTONE_TTL_NANOS;
+        timed.remove(99L);
+
+        assertEquals(1, timed.tombstoneCount());
+    }
+
+    @Test
+    void remove_tombstonesAreBounded() {
+        for (long id = 1; id <= MovieRankingIndex.MAX_TOMBSTONES + 10; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(MovieRankingIndex.MAX_TOMBSTONES, index.tombstoneCount());
+        // Die ältesten Sperren werden zuerst verworfen
+        assertTrue(index.put(stats(1L, "drama", 40, 5)));
+        assertFalse(index.put(stats(MovieRankingIndex.MAX_TOMBSTONES + 10L, "drama", 40, 5)));
+    }
+
+    @Test
+    void moviesWithoutReviews_areNotRanked() {
+        index.put(stats(1L, "drama", 0, 0));
+
+        assertEquals(0, index.size());
+        assertTrue(index.top(10).isEmpty());
+    }
+
+    @Test
+    void remove_dropsMovieFromAllRankings() {
+        index.put(stats(1L, "drama", 40, 5));
+        index.remove(1L);
+
+        assertTrue(index.top(10).isEmpty());
+        assertTrue(index.top("drama", 10).isEmpty());
+    }
+
+    @Test
+    void resetRatings_emptiesRankingButKeepsMoviesKnown() {
+        index.put(stats(1L, "drama", 40, 5));
+        index.resetRatings();
+        assertEquals(0, index.size());
+
+        index.put(stats(1L, "drama", 8, 1));
+        assertEquals(1, index.size());
+    }
+}
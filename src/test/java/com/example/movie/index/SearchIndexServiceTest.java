@@ -0,0 +1,48 @@
+package com.example.movie.index;
+
+import com.example.movie.model.Movie;
+import com.example.movie.repository.MovieRepository;
+import com.example.movie.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexServiceTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @InjectMocks
+    private SearchIndexService searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void offset_largePage_doesNotOverflow() {
+        assertEquals(Integer.MAX_VALUE, SearchIndexService.offset(Integer.MAX_VALUE, 100));
+        assertEquals(0, SearchIndexService.offset(-1, 100));
+    }
+
+    @Test
+    void searchMovies_pageBeyondResults_returnsEmptyPage() {
+        Movie movie = new Movie();
+        movie.setId(1L);
+        movie.setTitle("Inception");
+        searchIndex.indexMovie(movie);
+
+        InvertedIndex.SearchResult result = searchIndex.searchMovies("inception", Integer.MAX_VALUE / 10, 100);
+
+        assertEquals(1, result.total());
+        assertTrue(result.hits().isEmpty());
+    }
+}
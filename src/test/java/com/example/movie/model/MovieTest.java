@@ -1,5 +1,6 @@
 package com.example.movie.model;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -78,4 +79,70 @@ class MovieTest {
         assertSame(review1, movie.getReviews().get(0));
         assertSame(review2, movie.getReviews().get(1));
     }
+
+    @Test
+    void testAddAndRemoveRatingMaintainsAverage() {
+        movie.addRating(4);
+        movie.addRating(8);
+        assertEquals(2, movie.getReviewCount());
+        assertEquals(6.0, movie.getAverageRating());
+
+        assertEquals(1, movie.getRatingHistogram().count(4));
+        assertEquals(1, movie.getRatingHistogram().count(8));
+
+        movie.removeRating(4);
+        assertEquals(1, movie.getReviewCount());
+        assertEquals(8.0, movie.getAverageRating());
+        assertEquals(0, movie.getRatingHistogram().count(4));
+
+        movie.removeRating(8);
+        assertEquals(0, movie.getReviewCount());
+        assertEquals(0.0, movie.getAverageRating());
+    }
+
+    @Test
+    void testRecalculateRatingsFromReviews() {
+        Review review1 = new Review();
+        review1.setRating(3);
+        Review review2 = new Review();
+        review2.setRating(6);
+        movie.setReviews(new ArrayList<>(List.of(review1, review2)));
+
+        movie.recalculateRatings();
+
+        assertEquals(9L, movie.getRatingSum());
+        assertEquals(2, movie.getReviewCount());
+        assertEquals(4.5, movie.getAverageRating());
+        assertEquals(2, movie.getRatingHistogram().total());
+        assertEquals(4.5, movie.getRatingHistogram().median());
+    }
+
+    @Test
+    void testContentHashCoversOnlyContentFields() {
+        movie.updateContentHash();
+        String hash = movie.getContentHash();
+        assertEquals(64, hash.length());
+
+        movie.addRating(7);
+        movie.updateContentHash();
+        assertEquals(hash, movie.getContentHash());
+
+        movie.setAgeRating(movie.getAgeRating() + 1);
+        movie.updateContentHash();
+        assertNotEquals(hash, movie.getContentHash());
+        assertEquals(Movie.computeContentHash(movie.getTitle(), movie.getGenre(), movie.getReleaseDate(),
+                movie.getAgeRating(), movie.isRecommended()), movie.getContentHash());
+    }
+
+    @Test
+    void testReviewsSetOnlyWhenPresentInJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        Movie withoutReviews = objectMapper.readValue("{\"title\":\"Inception\"}", Movie.class);
+        Movie withReviews = objectMapper.readValue("{\"title\":\"Inception\",\"reviews\":[]}", Movie.class);
+
+        assertFalse(withoutReviews.hasReviewsSet());
+        assertTrue(withReviews.hasReviewsSet());
+        assertTrue(withReviews.getReviews().isEmpty());
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.movie.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingHistogramTest {
+
+    private final RatingHistogramConverter converter = new RatingHistogramConverter();
+
+    private static RatingHistogram histogramOf(int... ratings) {
+        RatingHistogram histogram = RatingHistogram.empty();
+        for (int rating : ratings) {
+            histogram = histogram.withRating(rating);
+        }
+        return histogram;
+    }
+
+    @Test
+    void withRating_returnsNewInstanceAndLeavesOriginalUnchanged() {
+        RatingHistogram empty = RatingHistogram.empty();
+        RatingHistogram one = empty.withRating(7);
+
+        assertEquals(0, empty.total());
+        assertEquals(1, one.total());
+        assertEquals(1, one.count(7));
+    }
+
+    @Test
+    void withoutRating_emptyBucket_isNoOp() {
+        RatingHistogram histogram = histogramOf(5);
+
+        assertSame(histogram, histogram.withoutRating(3));
+        assertTrue(histogram.withoutRating(5).isEmpty());
+    }
+
+    @Test
+    void ratingOutOfRange_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> RatingHistogram.empty().withRating(0));
+        assertThrows(IllegalArgumentException.class, () -> RatingHistogram.empty().withRating(11));
+    }
+
+    @Test
+    void median_oddAndEvenTotals() {
+        assertEquals(5.0, histogramOf(1, 5, 10).median());
+        assertEquals(6.5, histogramOf(2, 5, 8, 9).median());
+    }
+
+    @Test
+    void percentile_usesNearestRank() {
+        RatingHistogram histogram = histogramOf(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+        assertEquals(3, histogram.percentile(25));
+        assertEquals(9, histogram.percentile(90));
+        assertEquals(10, histogram.percentile(100));
+    }
+
+    @Test
+    void median_emptyHistogram_throwsIllegalStateException() {
+        assertThrows(IllegalStateException.class, () -> RatingHistogram.empty().median());
+    }
+
+    @Test
+    void converter_roundTrip() {
+        RatingHistogram histogram = histogramOf(1, 1, 4, 10);
+
+        String column = converter.convertToDatabaseColumn(histogram);
+
+        assertEquals("2,0,0,1,0,0,0,0,0,1", column);
+        assertEquals(histogram, converter.convertToEntityAttribute(column));
+    }
+
+    @Test
+    void converter_nullColumn_isEmptyHistogram() {
+        assertNull(converter.convertToDatabaseColumn(RatingHistogram.empty()));
+        assertTrue(converter.convertToEntityAttribute(null).isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.movie.service;
+
+import com.example.movie.model.Genre;
+import com.example.movie.model.Movie;
+import com.example.movie.repository.GenreInsertRepository;
+import com.example.movie.repository.GenreRepository;
+import com.example.movie.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GenreServiceTest {
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private GenreInsertRepository genreInsertRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private GenreService genreService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private Movie buildMovie(String genre) {
+        Movie m = new Movie();
+        m.setTitle("Movie");
+        m.setGenre(genre);
+        return m;
+    }
+
+    @Test
+    void splitGenres_normalizesAndDeduplicates() {
+        assertEquals(Set.of("action", "sci-fi"), GenreService.splitGenres(" Action, Sci-Fi / action ,"));
+        assertTrue(GenreService.splitGenres(null).isEmpty());
+    }
+
+    @Test
+    void toPrefixPattern_escapesWildcards() {
+        assertEquals("sci%", GenreService.toPrefixPattern(" Sci "));
+        assertEquals("100!%!_fun%", GenreService.toPrefixPattern("100%_Fun"));
+    }
+
+    @Test
+    void assignGenres_reusesExistingAndCreatesMissingWithOneLookup() {
+        Genre action = new Genre("action");
+        action.setId(1L);
+        Genre drama = new Genre("drama");
+        drama.setId(2L);
+        Movie m1 = buildMovie("Action, Drama");
+        Movie m2 = buildMovie("Drama");
+        when(genreRepository.findByNameIn(Set.of("action", "drama"))).thenReturn(List.of(action));
+        when(genreRepository.findByNameInForShare(Set.of("drama"))).thenReturn(List.of(drama));
+
+        genreService.assignGenres(List.of(m1, m2));
+
+        assertEquals(Set.of(action, drama), m1.getGenres());
+        assertEquals(Set.of(drama), m2.getGenres());
+        verify(genreRepository, times(1)).findByNameIn(Set.of("action", "drama"));
+        // Neue Genres werden in der laufenden Transaktion angelegt, ohne zweite Verbindung
+        verify(genreInsertRepository, times(1)).insertIgnore(Set.of("drama"));
+        verify(genreRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void assignGenres_genreCreatedConcurrently_readsItAgainInsteadOfFailing() {
+        Genre drama = new Genre("drama");
+        drama.setId(2L);
+        Movie m = buildMovie("Drama");
+        // Der parallel angelegte Name fehlt im Snapshot, der Insert überspringt ihn, die sperrende Abfrage sieht ihn
+        when(genreRepository.findByNameIn(Set.of("drama"))).thenReturn(List.of());
+        when(genreRepository.findByNameInForShare(Set.of("drama"))).thenReturn(List.of(drama));
+
+        genreService.assignGenres(List.of(m));
+
+        assertEquals(Set.of(drama), m.getGenres());
+        verify(genreInsertRepository, times(1)).insertIgnore(Set.of("drama"));
+    }
+
+    @Test
+    void assignGenres_unchangedGenres_keepsCollectionUntouched() {
+        Genre action = new Genre("action");
+        action.setId(1L);
+        Movie m = buildMovie("Action");
+        Set<Genre> current = spy(new HashSet<>(Set.of(action)));
+        m.setGenres(current);
+
+        genreService.assignGenres(List.of(m));
+
+        assertSame(current, m.getGenres());
+        verify(current, never()).retainAll(any());
+        verify(current, never()).addAll(any());
+        verify(genreRepository, never()).findByNameIn(any());
+    }
+
+    @Test
+    void assignGenres_changedGenres_updatesCollectionInPlace() {
+        Genre action = new Genre("action");
+        action.setId(1L);
+        Genre drama = new Genre("drama");
+        drama.setId(2L);
+        Movie m = buildMovie("Action, Drama");
+        Set<Genre> current = new HashSet<>(Set.of(action, new Genre("old")));
+        m.setGenres(current);
+        when(genreRepository.findByNameIn(Set.of("action", "drama"))).thenReturn(List.of(action, drama));
+
+        genreService.assignGenres(List.of(m));
+
+        assertSame(current, m.getGenres());
+        assertEquals(Set.of(action, drama), current);
+        verify(genreRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void assignGenres_withoutGenre_clearsGenresWithoutQuery() {
+        Movie m = buildMovie(null);
+        m.getGenres().add(new Genre("old"));
+
+        genreService.assignGenres(List.of(m));
+
+        assertTrue(m.getGenres().isEmpty());
+        verify(genreRepository, never()).findByNameIn(any());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.movie.service;
+
+import com.example.movie.dto.MovieVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieResponseCacheTest {
+
+    private MovieResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MovieResponseCache();
+    }
+
+    private static byte[] json(int length) {
+        return ("{\"title\":\"" + "x".repeat(length) + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void get_onlyMatchesTheStoredVersion() {
+        MovieVersion version = new MovieVersion(3, 5);
+        cache.put(1L, MovieResponseCache.Entry.of(version, json(10)));
+
+        assertNotNull(cache.get(1L, version));
+        assertNull(cache.get(1L, new MovieVersion(3, 6)));
+        assertNull(cache.get(1L, new MovieVersion(4, 5)));
+        assertNull(cache.get(2L, version));
+    }
+
+    @Test
+    void entry_compressesOnlyLargeResponses() throws Exception {
+        MovieVersion version = new MovieVersion(1, 0);
+        assertNull(MovieResponseCache.Entry.of(version, json(10)).gzip());
+
+        byte[] large = json(MovieResponseCache.MIN_GZIP_BYTES);
+        MovieResponseCache.Entry entry = MovieResponseCache.Entry.of(version, large);
+        assertNotNull(entry.gzip());
+        assertTrue(entry.gzip().length < large.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(entry.gzip()))) {
+            assertArrayEquals(large, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void evict_removesEntries() {
+        MovieVersion version = new MovieVersion(1, 0);
+        for (long id = 1; id <= 3; id++) {
+            cache.put(id, MovieResponseCache.Entry.of(version, json(10)));
+        }
+
+        cache.evict(1L);
+        assertNull(cache.get(1L, version));
+        cache.evictAll(List.of(2L));
+        assertNull(cache.get(2L, version));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_dropsLeastRecentlyReadEntryWhenFull() {
+        MovieVersion version = new MovieVersion(1, 0);
+        for (long id = 0; id < MovieResponseCache.MAX_ENTRIES; id++) {
+            cache.put(id, MovieResponseCache.Entry.of(version, json(1)));
+        }
+        cache.get(0L, version);
+
+        cache.put(-1L, MovieResponseCache.Entry.of(version, json(1)));
+
+        assertEquals(MovieResponseCache.MAX_ENTRIES, cache.size());
+        assertNotNull(cache.get(0L, version));
+        assertNull(cache.get(1L, version));
+    }
+}
@@ -1,16 +1,38 @@
 package com.example.movie.service;
 
+import com.example.movie.dto.MovieCursorPage;
+import com.example.movie.dto.MovieSummary;
+import com.example.movie.dto.MovieUpsertState;
+import com.example.movie.dto.MovieVersion;
+import com.example.movie.dto.PatchedMovie;
+import com.example.movie.dto.RatingDistribution;
+import com.example.movie.dto.UpsertResult;
+import com.example.movie.exception.MovieNotFoundException;
+import com.example.movie.exception.PreconditionFailedException;
+import com.example.movie.index.InvertedIndex;
+import com.example.movie.index.SearchIndexService;
+import com.example.movie.model.Genre;
 import com.example.movie.model.Movie;
 import com.example.movie.model.Review;
+import com.example.movie.repository.DataMigrationRepository;
 import com.example.movie.repository.MovieRepository;
+import com.example.movie.repository.MovieUpsertRepository;
+import com.example.movie.repository.ReviewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Path;
 import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -23,15 +45,63 @@ class MovieServiceTest {
     @Mock
     private MovieRepository movieRepository;
 
+    @Mock
+    private MovieUpsertRepository movieUpsertRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
     @Mock
     private Validator validator;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private GenreService genreService;
+
+    @Mock
+    private SearchIndexService searchIndex;
+
+    @Spy
+    private RecommendedMovieCache recommendedMovieCache = new RecommendedMovieCache();
+
+    @Mock
+    private MovieRankingService movieRanking;
+
+    @Mock
+    private MovieResponseCache movieResponseCache;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private DataMigrationRepository dataMigrationRepository;
+
     @InjectMocks
     private MovieService movieService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> {
+            TransactionCallback<?> callback = inv.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        when(genreService.resolveGenres(anyCollection())).thenAnswer(inv -> {
+            Map<String, Genre> genres = new HashMap<>();
+            for (String name : inv.<Collection<String>>getArgument(0)) {
+                Genre genre = new Genre(name);
+                genre.setId((long) name.hashCode());
+                genres.put(name, genre);
+            }
+            return genres;
+        });
+        when(movieRepository.findIdsByIdIn(anyCollection()))
+                .thenAnswer(inv -> List.copyOf(inv.<Collection<Long>>getArgument(0)));
     }
 
     private Movie buildMovie(Long id) {
@@ -62,6 +132,111 @@ class MovieServiceTest {
         verify(movieRepository, times(1)).findAll();
     }
 
+    @Test
+    void getMoviesAfter_firstPage_returnsItemsAndNextCursor() {
+        Movie m1 = buildMovie(1L);
+        Movie m2 = buildMovie(2L);
+        Movie m3 = buildMovie(3L);
+        when(movieRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(m1, m2, m3)));
+
+        MovieCursorPage<Movie> page = movieService.getMoviesAfter(null, 2);
+
+        assertEquals(List.of(m1, m2), page.items());
+        assertNotNull(page.nextCursor());
+        assertEquals(2L, MovieService.decodeCursor(page.nextCursor()));
+    }
+
+    @Test
+    void getMoviesAfter_lastPage_hasNoNextCursor() {
+        Movie m3 = buildMovie(3L);
+        String cursor = MovieService.encodeCursor(2L);
+        when(movieRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(m3));
+
+        MovieCursorPage<Movie> page = movieService.getMoviesAfter(cursor, 2);
+
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+        verify(movieRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), any(Pageable.class));
+    }
+
+    @Test
+    void getMovieSummariesAfter_fullPage_usesProjectionAndReturnsNextCursor() {
+        MovieSummary s1 = new MovieSummary(1L, "A", "Drama", 4.0, false, 1);
+        MovieSummary s2 = new MovieSummary(2L, "B", "Drama", 3.0, false, 1);
+        MovieSummary s3 = new MovieSummary(3L, "C", "Drama", 5.0, true, 1);
+        when(movieRepository.findSummariesAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(s1, s2, s3));
+
+        MovieCursorPage<MovieSummary> page = movieService.getMovieSummariesAfter(null, 2);
+
+        assertEquals(List.of(s1, s2), page.items());
+        assertEquals(2L, MovieService.decodeCursor(page.nextCursor()));
+        verify(movieRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void getMoviesAfter_invalidCursor_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMoviesAfter("kein-cursor!", 10));
+        verify(movieRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void exportMovies_loadsIdRangesWithReviewsAndClearsContextPerChunk() {
+        Movie m1 = buildMovie(1L);
+        Movie m2 = buildMovie(2L);
+        when(movieRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(movieRepository.findWithReviewsByIdBetween(1L, 2L)).thenReturn(List.of(m1, m2));
+
+        List<Movie> exported = new ArrayList<>();
+        movieService.exportMovies(exported::add);
+
+        assertEquals(List.of(m1, m2), exported);
+        verify(entityManager, times(1)).clear();
+        // Kurzer letzter Block: keine weitere ID-Abfrage
+        verify(movieRepository, times(1)).findIdsAfter(anyLong(), any(Pageable.class));
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    void exportMovies_fullChunk_continuesAfterLastId() {
+        List<Long> firstChunk = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            firstChunk.add(id);
+        }
+        when(movieRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(firstChunk);
+        when(movieRepository.findIdsAfter(eq(500L), any(Pageable.class))).thenReturn(List.of());
+        when(movieRepository.findWithReviewsByIdBetween(1L, 500L)).thenReturn(List.of(buildMovie(1L)));
+
+        List<Movie> exported = new ArrayList<>();
+        movieService.exportMovies(exported::add);
+
+        assertEquals(1, exported.size());
+        verify(movieRepository).findIdsAfter(eq(500L), any(Pageable.class));
+    }
+
+    @Test
+    void searchMovies_returnsMoviesInRankOrder() {
+        Movie m1 = buildMovie(1L);
+        Movie m2 = buildMovie(2L);
+        when(searchIndex.searchMovies("dark", 0, 20)).thenReturn(new InvertedIndex.SearchResult(
+                List.of(new InvertedIndex.Hit(2L, 3.0), new InvertedIndex.Hit(1L, 1.0)), 2));
+        when(movieRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(m1, m2));
+
+        List<Movie> result = movieService.searchMovies("dark", 0, 20);
+
+        assertEquals(List.of(m2, m1), result);
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    void searchMovies_noHits_doesNotQueryRepository() {
+        when(searchIndex.searchMovies("nichts", 0, 20)).thenReturn(new InvertedIndex.SearchResult(List.of(), 0));
+
+        assertTrue(movieService.searchMovies("nichts", 0, 20).isEmpty());
+        verify(movieRepository, never()).findAllById(any());
+    }
+
     @Test
     void getMovieById_existingId_returnsOptional() {
         Movie m = buildMovie(1L);
@@ -84,6 +259,33 @@ class MovieServiceTest {
         verify(movieRepository, times(1)).findById(99L);
     }
 
+    @Test
+    void getRatingDistribution_usesStoredHistogram() {
+        Movie m = buildMovie(7L);
+        m.addRating(2);
+        m.addRating(8);
+        m.addRating(9);
+        when(movieRepository.findById(7L)).thenReturn(Optional.of(m));
+
+        RatingDistribution result = movieService.getRatingDistribution(7L).orElseThrow();
+
+        assertEquals(3, result.total());
+        assertEquals(1, result.buckets().get(8));
+        assertEquals(8.0, result.median());
+        assertEquals(9, result.p90());
+    }
+
+    @Test
+    void getRatingDistribution_noReviews_hasNoMedian() {
+        when(movieRepository.findById(8L)).thenReturn(Optional.of(buildMovie(8L)));
+
+        RatingDistribution result = movieService.getRatingDistribution(8L).orElseThrow();
+
+        assertEquals(0, result.total());
+        assertEquals(10, result.buckets().size());
+        assertNull(result.median());
+    }
+
     @Test
     void existsById_trueCase() {
         when(movieRepository.existsById(5L)).thenReturn(true);
@@ -116,6 +318,38 @@ class MovieServiceTest {
         verify(movieRepository, times(1)).findByRecommended(true);
     }
 
+    @Test
+    void getMoviesByRecommended_secondCall_isServedFromCache() {
+        Movie m1 = buildMovie(2L);
+        when(movieRepository.findByRecommended(true)).thenReturn(List.of(m1));
+
+        movieService.getMoviesByRecommended(true);
+        List<Movie> result = movieService.getMoviesByRecommended(true);
+
+        assertEquals(List.of(m1), result);
+        verify(movieRepository, times(1)).findByRecommended(true);
+        // Nur das Laden öffnet eine Transaktion (auf dem Primary), der Cache-Treffer nicht
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void createMovie_evictsCachedListForItsFlag() {
+        Movie recommended = buildMovie(2L);
+        when(movieRepository.findByRecommended(true)).thenReturn(List.of());
+        when(movieRepository.findByRecommended(false)).thenReturn(List.of());
+        when(validator.validate(recommended)).thenReturn(Collections.emptySet());
+        when(movieRepository.save(recommended)).thenReturn(recommended);
+        movieService.getMoviesByRecommended(true);
+        movieService.getMoviesByRecommended(false);
+
+        movieService.createMovie(recommended);
+        movieService.getMoviesByRecommended(true);
+        movieService.getMoviesByRecommended(false);
+
+        verify(movieRepository, times(2)).findByRecommended(true);
+        verify(movieRepository, times(1)).findByRecommended(false);
+    }
+
     @Test
     void getMoviesByRecommended_false_returnsEmptyList() {
         when(movieRepository.findByRecommended(false)).thenReturn(Collections.emptyList());
@@ -131,25 +365,57 @@ class MovieServiceTest {
     void getMoviesByGenre_foundReturnsList() {
         Movie m1 = buildMovie(1L);
         Movie m2 = buildMovie(2L);
-        when(movieRepository.findByGenreContainingIgnoreCase("Sci"))
+        when(movieRepository.findByGenreNamePrefix("sci%"))
                 .thenReturn(List.of(m1, m2));
 
         List<Movie> result = movieService.getMoviesByGenre("Sci");
 
         assertEquals(2, result.size());
-        verify(movieRepository, times(1)).findByGenreContainingIgnoreCase("Sci");
+        verify(movieRepository, times(1)).findByGenreNamePrefix("sci%");
     }
 
     @Test
     void getMoviesByGenre_notFoundReturnsEmptyList() {
-        when(movieRepository.findByGenreContainingIgnoreCase("Horror"))
+        when(movieRepository.findByGenreNamePrefix("horror%"))
                 .thenReturn(Collections.emptyList());
 
         List<Movie> result = movieService.getMoviesByGenre("Horror");
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(movieRepository, times(1)).findByGenreContainingIgnoreCase("Horror");
+        verify(movieRepository, times(1)).findByGenreNamePrefix("horror%");
+    }
+
+    @Test
+    void getAllMovieSummaries_usesProjectionWithoutLoadingEntities() {
+        MovieSummary summary = new MovieSummary(1L, "Title1", "Drama", 4.5, true, 2);
+        when(movieRepository.findAllSummaries()).thenReturn(List.of(summary));
+
+        List<MovieSummary> result = movieService.getAllMovieSummaries();
+
+        assertEquals(List.of(summary), result);
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    void getMovieSummariesByGenre_usesPrefixPattern() {
+        MovieSummary summary = new MovieSummary(2L, "Title2", "Sci-Fi", 0.0, false, 0);
+        when(movieRepository.findSummariesByGenreNamePrefix("sci%")).thenReturn(List.of(summary));
+
+        List<MovieSummary> result = movieService.getMovieSummariesByGenre("Sci");
+
+        assertEquals(1, result.size());
+        verify(movieRepository, never()).findByGenreNamePrefix(anyString());
+    }
+
+    @Test
+    void getTopMovies_clampsLimitAndDelegatesToRanking() {
+        when(movieRanking.top("drama", 500)).thenReturn(List.of());
+
+        movieService.getTopMovies("drama", 10_000);
+
+        verify(movieRanking, times(1)).top("drama", 500);
+        verifyNoInteractions(movieRepository);
     }
 
     @Test
@@ -163,7 +429,9 @@ class MovieServiceTest {
         assertNotNull(saved);
         assertEquals(toCreate, saved);
         verify(validator, times(1)).validate(toCreate);
+        verify(genreService, times(1)).assignGenres(List.of(toCreate));
         verify(movieRepository, times(1)).save(toCreate);
+        verify(searchIndex, times(1)).indexMovie(toCreate);
     }
 
     @Test
@@ -268,7 +536,7 @@ class MovieServiceTest {
         assertEquals("New Genre", result.getGenre());
         assertEquals(LocalDate.of(2021, 5, 20), result.getReleaseDate());
         assertEquals(18, result.getAgeRating());
-        assertEquals(3.8, result.getAverageRating());
+        assertEquals(4.5, result.getAverageRating());
         assertFalse(result.isRecommended());
         assertTrue(result.getReviews().isEmpty());
 
@@ -277,6 +545,165 @@ class MovieServiceTest {
         verify(movieRepository, times(1)).save(existing);
     }
 
+    private Review buildReview(Long id, String comment, int rating) {
+        Review r = new Review();
+        r.setId(id);
+        r.setUsername("user" + id);
+        r.setComment(comment);
+        r.setRating(rating);
+        return r;
+    }
+
+    @Test
+    void updateMovie_withoutReviewsInPayload_keepsExistingReviews() {
+        Long id = 14L;
+        Movie existing = buildMovie(id);
+        Review kept = buildReview(1L, "bleibt", 6);
+        kept.setMovie(existing);
+        existing.getReviews().add(kept);
+        existing.recalculateRatings();
+
+        Movie updated = buildMovie(id);
+        updated.setTitle("Only Fields");
+        updated.setReviews(null);
+
+        when(validator.validate(updated)).thenReturn(Collections.emptySet());
+        when(movieRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.save(existing)).thenAnswer(inv -> inv.getArgument(0));
+
+        Movie result = movieService.updateMovie(id, updated);
+
+        assertEquals(List.of(kept), result.getReviews());
+        assertEquals(6.0, result.getAverageRating());
+        verify(searchIndex, never()).removeReviews(any());
+        verify(searchIndex, never()).indexReview(any());
+        verify(searchIndex).indexMovie(existing);
+    }
+
+    @Test
+    void updateMovie_withReviews_appliesOnlyTheDiff() {
+        Long id = 15L;
+        Movie existing = buildMovie(id);
+        Review unchanged = buildReview(1L, "gleich", 4);
+        Review edited = buildReview(2L, "alt", 6);
+        Review removed = buildReview(3L, "weg", 8);
+        for (Review r : List.of(unchanged, edited, removed)) {
+            r.setMovie(existing);
+            existing.getReviews().add(r);
+        }
+        existing.recalculateRatings();
+
+        Movie updated = buildMovie(id);
+        Review added = buildReview(null, "neu", 10);
+        updated.setReviews(new ArrayList<>(List.of(
+                buildReview(1L, "gleich", 4), buildReview(2L, "neu formuliert", 2), added)));
+
+        when(validator.validate(updated)).thenReturn(Collections.emptySet());
+        when(movieRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.save(existing)).thenAnswer(inv -> inv.getArgument(0));
+
+        Movie result = movieService.updateMovie(id, updated);
+
+        assertEquals(List.of(unchanged, edited, added), result.getReviews());
+        assertEquals("neu formuliert", edited.getComment());
+        assertEquals(2, edited.getRating());
+        assertSame(existing, added.getMovie());
+        assertEquals(3, result.getReviewCount());
+        assertEquals(16L, result.getRatingSum());
+        verify(searchIndex).removeReviews(List.of(3L));
+        verify(searchIndex).indexReview(edited);
+        verify(searchIndex).indexReview(added);
+        verify(searchIndex, never()).indexReview(unchanged);
+    }
+
+    @Test
+    void updateMovie_withForeignReviewId_insertsAsNewReview() {
+        Long id = 16L;
+        Movie existing = buildMovie(id);
+
+        Movie updated = buildMovie(id);
+        Review foreign = buildReview(77L, "fremd", 5);
+        updated.setReviews(new ArrayList<>(List.of(foreign)));
+
+        when(validator.validate(updated)).thenReturn(Collections.emptySet());
+        when(movieRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.save(existing)).thenAnswer(inv -> inv.getArgument(0));
+
+        Movie result = movieService.updateMovie(id, updated);
+
+        assertNull(foreign.getId());
+        assertEquals(List.of(foreign), result.getReviews());
+    }
+
+    @Test
+    void updateMovie_staleExpectedVersion_throwsWithoutChanges() {
+        Long id = 12L;
+        Movie existing = buildMovie(id);
+        existing.setVersion(5);
+        Movie updated = buildMovie(id);
+        updated.setTitle("Stale Title");
+
+        when(validator.validate(updated)).thenReturn(Collections.emptySet());
+        when(movieRepository.findById(id)).thenReturn(Optional.of(existing));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> movieService.updateMovie(id, updated, new MovieVersion(4, 0)));
+        assertEquals("Movie 12", existing.getTitle());
+        verify(movieRepository, never()).save(any(Movie.class));
+    }
+
+    @Test
+    void updateMovie_staleReviewVersion_throwsWithoutChanges() {
+        Long id = 14L;
+        Movie existing = buildMovie(id);
+        existing.setVersion(5);
+        Movie updated = buildMovie(id);
+        updated.setTitle("Stale Reviews");
+
+        when(validator.validate(updated)).thenReturn(Collections.emptySet());
+        when(movieRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.findVersionById(id)).thenReturn(Optional.of(new MovieVersion(5, 8)));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> movieService.updateMovie(id, updated, new MovieVersion(5, 7)));
+        assertEquals("Movie 14", existing.getTitle());
+        verify(movieRepository, never()).save(any(Movie.class));
+    }
+
+    @Test
+    void updateMovie_withoutReviews_ignoresReviewVersion() {
+        Long id = 15L;
+        Movie existing = buildMovie(id);
+        existing.setVersion(5);
+        Movie updated = buildMovie(id);
+        updated.setTitle("Title Only");
+        updated.setReviews(null);
+
+        when(validator.validate(updated)).thenReturn(Collections.emptySet());
+        when(movieRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.save(existing)).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals("Title Only", movieService.updateMovie(id, updated, new MovieVersion(5, 7)).getTitle());
+        verify(movieRepository, never()).findVersionById(id);
+    }
+
+    @Test
+    void updateMovie_matchingExpectedVersion_updates() {
+        Long id = 13L;
+        Movie existing = buildMovie(id);
+        existing.setVersion(5);
+        Movie updated = buildMovie(id);
+        updated.setTitle("Current Title");
+
+        when(validator.validate(updated)).thenReturn(Collections.emptySet());
+        when(movieRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.findVersionById(id)).thenReturn(Optional.of(new MovieVersion(5, 7)));
+        when(movieRepository.save(existing)).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals("Current Title", movieService.updateMovie(id, updated, new MovieVersion(5, 7)).getTitle());
+        verify(movieResponseCache).evict(id);
+    }
+
     @Test
     void updateMovie_existingWithReviews_replacesReviewsAndUpdates() {
         Long id = 11L;
@@ -294,6 +721,8 @@ class MovieServiceTest {
 
         Review newR1 = mock(Review.class);
         Review newR2 = mock(Review.class);
+        when(newR1.getRating()).thenReturn(4);
+        when(newR2.getRating()).thenReturn(8);
         updated.setReviews(new ArrayList<>(List.of(newR1, newR2)));
 
         when(validator.validate(updated)).thenReturn(Collections.emptySet());
@@ -306,7 +735,8 @@ class MovieServiceTest {
         assertEquals("Genre X", result.getGenre());
         assertEquals(LocalDate.of(2020, 2, 2), result.getReleaseDate());
         assertEquals(16, result.getAgeRating());
-        assertEquals(2.2, result.getAverageRating());
+        assertEquals(6.0, result.getAverageRating());
+        assertEquals(2, result.getReviewCount());
         assertTrue(result.isRecommended());
 
         assertTrue(result.getReviews().size() == 2);
@@ -340,28 +770,338 @@ class MovieServiceTest {
     void deleteById_delegatesToRepository() {
         Long id = 15L;
         doNothing().when(movieRepository).deleteById(id);
+        when(reviewRepository.findIdsByMovieIdIn(List.of(id))).thenReturn(List.of(150L, 151L));
 
         movieService.deleteById(id);
 
         verify(movieRepository, times(1)).deleteById(id);
+        verify(searchIndex, times(1)).removeMovie(id);
+        verify(searchIndex, times(1)).removeReviews(List.of(150L, 151L));
+        verify(movieResponseCache, times(1)).evict(id);
     }
 
     @Test
-    void deleteByReleaseDateBefore_delegatesToRepository() {
+    void deleteByReleaseDateBefore_deletesReviewsThenMoviesPerChunk() {
         LocalDate cutoff = LocalDate.of(2019, 12, 31);
-        doNothing().when(movieRepository).deleteByReleaseDateBefore(cutoff);
+        List<Long> ids = List.of(1L, 2L, 3L);
+        when(movieRepository.findIdsByReleaseDateBefore(eq(cutoff), any(Pageable.class))).thenReturn(ids);
 
         movieService.deleteByReleaseDateBefore(cutoff);
 
-        verify(movieRepository, times(1)).deleteByReleaseDateBefore(cutoff);
+        var inOrder = inOrder(reviewRepository, movieRepository);
+        inOrder.verify(reviewRepository).bulkDeleteByMovieIdIn(ids);
+        inOrder.verify(movieRepository).bulkDeleteByIdIn(ids);
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(movieRepository, never()).findAll();
     }
 
     @Test
-    void deleteAll_delegatesToRepository() {
-        doNothing().when(movieRepository).deleteAll();
+    void deleteByReleaseDateBefore_fullChunk_continuesWithNextTransaction() {
+        LocalDate cutoff = LocalDate.of(2019, 12, 31);
+        List<Long> fullChunk = new ArrayList<>();
+        for (long i = 1; i <= 500; i++) {
+            fullChunk.add(i);
+        }
+        when(movieRepository.findIdsByReleaseDateBefore(eq(cutoff), any(Pageable.class)))
+                .thenReturn(fullChunk)
+                .thenReturn(Collections.emptyList());
+
+        movieService.deleteByReleaseDateBefore(cutoff);
 
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(movieRepository, times(1)).bulkDeleteByIdIn(fullChunk);
+    }
+
+    @Test
+    void deleteAll_deletesReviewsThenMoviesInBatch() {
         movieService.deleteAll();
 
-        verify(movieRepository, times(1)).deleteAll();
+        var inOrder = inOrder(reviewRepository, movieRepository);
+        inOrder.verify(reviewRepository).deleteAllInBatch();
+        inOrder.verify(movieRepository).deleteAllInBatch();
+        verify(movieRepository, never()).deleteAll();
+        verify(movieRepository, never()).findAll();
+    }
+
+    private static MovieUpsertState upsertState(Movie movie) {
+        movie.updateContentHash();
+        return new MovieUpsertState(movie.getId(), movie.getTitle(), movie.getReleaseDate(), movie.getGenre(),
+                movie.getContentHash(), movie.isRecommended());
+    }
+
+    @Test
+    void upsertMovies_insertsNewUpdatesChangedAndSkipsUnchanged() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection()))
+                .thenReturn(List.of(upsertState(buildMovie(1L)), upsertState(buildMovie(2L))));
+        when(movieUpsertRepository.nextId()).thenReturn(100L);
+        Genre drama = new Genre("drama");
+        drama.setId(7L);
+        Genre genre3 = new Genre("genre 3");
+        genre3.setId(8L);
+        when(genreService.resolveGenres(anyCollection())).thenReturn(Map.of("drama", drama, "genre 3", genre3));
+
+        Movie sameContent = buildMovie(1L);
+        sameContent.setId(0L);
+        Movie newGenre = buildMovie(2L);
+        newGenre.setId(0L);
+        newGenre.setGenre("Drama");
+        Movie brandNew = buildMovie(3L);
+        brandNew.setId(0L);
+
+        UpsertResult result = movieService.upsertMovies(List.of(sameContent, newGenre, brandNew));
+
+        assertEquals(new UpsertResult(1, 1, 1), result);
+        verify(movieRepository, times(1)).findUpsertStatesByTitleIn(Set.of("Movie 1", "Movie 2", "Movie 3"));
+        ArgumentCaptor<List<Movie>> rows = ArgumentCaptor.forClass(List.class);
+        verify(movieUpsertRepository, times(1)).upsert(rows.capture());
+        assertEquals(List.of(2L, 100L), rows.getValue().stream().map(Movie::getId).toList());
+        assertEquals("Drama", rows.getValue().get(0).getGenre());
+        verify(movieUpsertRepository).replaceGenres(Map.of(2L, List.of(7L), 100L, List.of(8L)));
+        verify(movieRepository).findAllById(List.of(2L, 100L));
+        verify(movieResponseCache).evictAll(List.of(2L));
+        verify(movieRepository, never()).saveAll(anyList());
+        verify(movieRepository, never()).findById(anyLong());
+        verify(genreService, never()).assignGenres(anyList());
+    }
+
+    @Test
+    void upsertMovies_unchangedGenres_keepsGenreRows() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection()))
+                .thenReturn(List.of(upsertState(buildMovie(2L))));
+        Movie incoming = buildMovie(2L);
+        incoming.setAgeRating(18);
+
+        UpsertResult result = movieService.upsertMovies(List.of(incoming));
+
+        assertEquals(new UpsertResult(0, 1, 0), result);
+        verify(movieUpsertRepository).upsert(argThat(rows -> rows.size() == 1 && rows.get(0).getAgeRating() == 18));
+        verify(movieUpsertRepository, never()).replaceGenres(anyMap());
+        verify(movieUpsertRepository, never()).nextId();
+    }
+
+    @Test
+    void upsertMovies_allUnchanged_writesNothing() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection()))
+                .thenReturn(List.of(upsertState(buildMovie(2L))));
+
+        UpsertResult result = movieService.upsertMovies(List.of(buildMovie(2L)));
+
+        assertEquals(new UpsertResult(0, 0, 1), result);
+        verify(movieUpsertRepository, never()).upsert(anyList());
+        verify(movieRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void upsertMovies_duplicateKeyInPayload_lastEntryWins() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection())).thenReturn(Collections.emptyList());
+        Movie first = buildMovie(4L);
+        Movie second = buildMovie(4L);
+        second.setAgeRating(16);
+
+        UpsertResult result = movieService.upsertMovies(List.of(first, second));
+
+        assertEquals(new UpsertResult(1, 0, 0), result);
+        ArgumentCaptor<List<Movie>> rows = ArgumentCaptor.forClass(List.class);
+        verify(movieUpsertRepository).upsert(rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(16, rows.getValue().get(0).getAgeRating());
+    }
+
+    @Test
+    void upsertMovies_caseVariantInPayload_countsOneKey() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection())).thenReturn(Collections.emptyList());
+        Movie first = buildMovie(4L);
+        Movie second = buildMovie(4L);
+        second.setTitle("MOVIE 4  ");
+
+        UpsertResult result = movieService.upsertMovies(List.of(first, second));
+
+        assertEquals(new UpsertResult(1, 0, 0), result);
+        verify(movieUpsertRepository).upsert(argThat(rows -> rows.size() == 1
+                && rows.get(0).getTitle().equals("MOVIE 4  ")));
+    }
+
+    @Test
+    void upsertMovies_caseVariantOfStoredKey_updatesExistingRow() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection()))
+                .thenReturn(List.of(upsertState(buildMovie(1L))));
+        Movie incoming = buildMovie(1L);
+        incoming.setId(0L);
+        incoming.setTitle("movie 1 ");
+
+        UpsertResult result = movieService.upsertMovies(List.of(incoming));
+
+        assertEquals(new UpsertResult(0, 1, 0), result);
+        verify(movieUpsertRepository, never()).nextId();
+        verify(movieUpsertRepository).upsert(argThat(rows -> rows.get(0).getId() == 1L));
+        verify(movieRepository).findAllById(List.of(1L));
+        verify(movieResponseCache).evictAll(List.of(1L));
+    }
+
+    @Test
+    void upsertMovies_keyMergedByDatabase_continuesWithExistingId() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        // Zwischen Abgleich und Statement parallel angelegt: die neue ID 100 existiert danach nicht
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection())).thenReturn(Collections.emptyList());
+        when(movieUpsertRepository.nextId()).thenReturn(100L);
+        when(movieRepository.findIdsByIdIn(anyCollection())).thenReturn(Collections.emptyList());
+        when(movieRepository.findIdByTitleAndReleaseDate("Movie 3", LocalDate.of(2024, 1, 3)))
+                .thenReturn(Optional.of(5L));
+        Genre genre3 = new Genre("genre 3");
+        genre3.setId(8L);
+        when(genreService.resolveGenres(anyCollection())).thenReturn(Map.of("genre 3", genre3));
+
+        UpsertResult result = movieService.upsertMovies(List.of(buildMovie(3L)));
+
+        assertEquals(new UpsertResult(0, 1, 0), result);
+        verify(movieUpsertRepository).replaceGenres(Map.of(5L, List.of(8L)));
+        verify(movieRepository).findAllById(List.of(5L));
+        verify(movieResponseCache).evictAll(List.of(5L));
+        verify(recommendedMovieCache).evict(true);
+        verify(recommendedMovieCache).evict(false);
+    }
+
+    @Test
+    void upsertMovies_missingReleaseDate_throwsBeforeAnyQuery() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        Movie movie = buildMovie(5L);
+        movie.setReleaseDate(null);
+
+        assertThrows(IllegalArgumentException.class, () -> movieService.upsertMovies(List.of(movie)));
+        verify(transactionTemplate, never()).execute(any());
+        verify(movieRepository, never()).findUpsertStatesByTitleIn(anyCollection());
+    }
+
+    @Test
+    void upsertMovies_largePayload_runsOneStatementPerChunk() {
+        when(validator.validate(any(Movie.class))).thenReturn(Collections.emptySet());
+        when(movieRepository.findUpsertStatesByTitleIn(anyCollection())).thenReturn(Collections.emptyList());
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            Movie m = new Movie();
+            m.setTitle("Upsert " + i);
+            m.setReleaseDate(LocalDate.of(2024, 1, 1));
+            movies.add(m);
+        }
+
+        UpsertResult result = movieService.upsertMovies(movies);
+
+        assertEquals(1200, result.inserted());
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(movieRepository, times(3)).findUpsertStatesByTitleIn(anyCollection());
+        verify(movieUpsertRepository, times(3)).upsert(anyList());
+    }
+
+    @Test
+    void patchMovie_recommendedOnly_validatesAndChangesOnlyThatField() throws Exception {
+        Movie existing = buildMovie(20L);
+        existing.setRecommended(false);
+        List<Review> reviews = existing.getReviews();
+        when(movieRepository.findById(20L)).thenReturn(Optional.of(existing));
+
+        Movie result = movieService.patchMovie(20L, objectMapper.readTree("{\"recommended\":true}"), null).movie();
+
+        assertTrue(result.isRecommended());
+        assertEquals("Movie 20", result.getTitle());
+        assertSame(reviews, result.getReviews());
+        verify(validator).validateProperty(existing, "recommended");
+        verify(validator, never()).validate(any());
+        verify(genreService, never()).assignGenres(any());
+        verify(movieRepository, never()).save(any(Movie.class));
+        verify(recommendedMovieCache).evict(false);
+        verify(recommendedMovieCache).evict(true);
+    }
+
+    @Test
+    void patchMovie_genreAndReleaseDate_reassignsGenres() throws Exception {
+        Movie existing = buildMovie(21L);
+        when(movieRepository.findById(21L)).thenReturn(Optional.of(existing));
+
+        movieService.patchMovie(21L,
+                objectMapper.readTree("{\"genre\":\"Drama\",\"releaseDate\":\"2001-02-03\"}"), null);
+
+        assertEquals("Drama", existing.getGenre());
+        assertEquals(LocalDate.of(2001, 2, 3), existing.getReleaseDate());
+        verify(genreService).assignGenres(List.of(existing));
+        verify(searchIndex).indexMovie(existing);
+    }
+
+    @Test
+    void patchMovie_reviewsOrNullPrimitive_areRejected() throws Exception {
+        Movie existing = buildMovie(22L);
+        when(movieRepository.findById(22L)).thenReturn(Optional.of(existing));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> movieService.patchMovie(22L, objectMapper.readTree("{\"reviews\":[]}"), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> movieService.patchMovie(22L, objectMapper.readTree("{\"ageRating\":null}"), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> movieService.patchMovie(22L, objectMapper.readTree("[]"), null));
+        assertEquals(12, existing.getAgeRating());
+        verify(searchIndex, never()).indexMovie(any());
+    }
+
+    @Test
+    void patchMovie_ifMatch_comparesCompositeVersionAndReturnsIt() throws Exception {
+        Movie existing = buildMovie(24L);
+        existing.setVersion(3);
+        when(movieRepository.findById(24L)).thenReturn(Optional.of(existing));
+        when(movieRepository.findVersionById(24L)).thenReturn(Optional.of(new MovieVersion(3, 7)));
+
+        assertThrows(PreconditionFailedException.class, () -> movieService.patchMovie(24L,
+                objectMapper.readTree("{\"ageRating\":16}"), new MovieVersion(3, 6)));
+        assertEquals(12, existing.getAgeRating());
+
+        PatchedMovie patched = movieService.patchMovie(24L,
+                objectMapper.readTree("{\"ageRating\":16}"), new MovieVersion(3, 7));
+        assertEquals(16, existing.getAgeRating());
+        assertEquals(new MovieVersion(3, 7), patched.version());
+    }
+
+    @Test
+    void patchMovie_notFound_throwsMovieNotFoundException() throws Exception {
+        when(movieRepository.findById(23L)).thenReturn(Optional.empty());
+
+        assertThrows(MovieNotFoundException.class,
+                () -> movieService.patchMovie(23L, objectMapper.readTree("{\"title\":\"Neu\"}"), null));
+    }
+
+    @Test
+    void backfillRatingStatistics_recalculatesLegacyMoviesInChunks() {
+        Movie legacy = buildMovie(7L);
+        for (int rating : new int[]{4, 8}) {
+            Review review = new Review();
+            review.setRating(rating);
+            review.setMovie(legacy);
+            legacy.getReviews().add(review);
+        }
+        when(movieRepository.findWithStaleRatingStatisticsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(legacy));
+        when(movieRepository.findWithStaleRatingStatisticsAfter(eq(7L), any(Pageable.class))).thenReturn(List.of());
+
+        movieService.backfillRatingStatistics();
+
+        assertEquals(2, legacy.getReviewCount());
+        assertEquals(12, legacy.getRatingSum());
+        assertEquals(6.0, legacy.getAverageRating());
+        assertEquals(2, legacy.getRatingHistogram().total());
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(dataMigrationRepository).save(argThat(m -> m.getName().equals(MovieService.RATING_STATISTICS_BACKFILL)));
+    }
+
+    @Test
+    void backfillRatingStatistics_alreadyDone_skipsScan() {
+        when(dataMigrationRepository.existsById(MovieService.RATING_STATISTICS_BACKFILL)).thenReturn(true);
+
+        movieService.backfillRatingStatistics();
+
+        verify(movieRepository, never()).findWithStaleRatingStatisticsAfter(anyLong(), any(Pageable.class));
+        verify(transactionTemplate, never()).execute(any());
+        verify(dataMigrationRepository, never()).save(any());
     }
 }
@@ -0,0 +1,72 @@
+package com.example.movie.service;
+
+import com.example.movie.model.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendedMovieCacheTest {
+
+    private RecommendedMovieCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecommendedMovieCache();
+        loads = new AtomicInteger();
+    }
+
+    private List<Movie> load() {
+        loads.incrementAndGet();
+        return List.of(new Movie());
+    }
+
+    @Test
+    void get_loadsOnlyOncePerFlag() {
+        cache.get(true, this::load);
+        cache.get(true, this::load);
+        cache.get(false, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evict_onlyDropsTheGivenFlag() {
+        cache.get(true, this::load);
+        cache.get(false, this::load);
+
+        cache.evict(true);
+        cache.get(true, this::load);
+        cache.get(false, this::load);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictAll_dropsBothFlags() {
+        cache.get(true, this::load);
+        cache.get(false, this::load);
+
+        cache.evictAll();
+        cache.get(true, this::load);
+        cache.get(false, this::load);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_invalidatedWhileLoading_doesNotStoreStaleResult() {
+        List<Movie> stale = cache.get(true, () -> {
+            cache.evict(true);
+            return load();
+        });
+        cache.get(true, this::load);
+
+        assertEquals(1, stale.size());
+        assertEquals(2, loads.get());
+    }
+}
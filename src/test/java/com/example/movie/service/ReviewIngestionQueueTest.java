@@ -0,0 +1,166 @@
+package com.example.movie.service;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ReviewIngestionQueueTest {
+
+    @Mock
+    private ReviewService reviewService;
+
+    @InjectMocks
+    private ReviewIngestionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(reviewService.ingestReviews(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+
+    private Review buildReview(long movieId) {
+        return buildReview(movieId, 7);
+    }
+
+    private Review buildReview(long movieId, int rating) {
+        Review r = new Review();
+        r.setUsername("user");
+        r.setComment("queued");
+        r.setRating(rating);
+        Movie m = new Movie();
+        m.setId(movieId);
+        r.setMovie(m);
+        return r;
+    }
+
+    @Test
+    void offer_beforeStart_isRejected() {
+        assertFalse(queue.offer(buildReview(1L)));
+        assertEquals(0, queue.pending());
+    }
+
+    @Test
+    void offer_withoutMovie_throwsIllegalArgumentException() {
+        queue.start();
+
+        assertThrows(IllegalArgumentException.class, () -> queue.offer(new Review()));
+    }
+
+    @Test
+    void offer_doesNotQueryTheDatabase() {
+        queue.start();
+
+        assertTrue(queue.offer(buildReview(2L)));
+        verifyNoInteractions(reviewService);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void stop_drainsAcceptedReviewsInBatches() {
+        queue.start();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer(buildReview(1L)));
+        }
+
+        queue.stop();
+
+        ArgumentCaptor<List<Review>> captor = ArgumentCaptor.forClass(List.class);
+        verify(reviewService, atLeastOnce()).ingestReviews(captor.capture());
+        assertEquals(3, captor.getAllValues().stream().mapToInt(List::size).sum());
+        assertEquals(0, queue.pending());
+        assertFalse(queue.offer(buildReview(1L)));
+    }
+
+    @Test
+    void offer_fullQueue_isRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(reviewService.ingestReviews(anyList())).thenAnswer(inv -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+        queue.start();
+
+        boolean rejected = false;
+        for (int i = 0; i < ReviewIngestionQueue.CAPACITY + 2 * ReviewIngestionQueue.BATCH_SIZE && !rejected; i++) {
+            rejected = !queue.offer(buildReview(1L));
+        }
+
+        assertTrue(rejected);
+        release.countDown();
+    }
+
+    @Test
+    void flush_transientFailure_isRetried() {
+        when(reviewService.ingestReviews(anyList()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        queue.flush(List.of(buildReview(1L)));
+
+        verify(reviewService, times(2)).ingestReviews(anyList());
+        assertEquals(0, queue.deadLettered());
+    }
+
+    @Test
+    void flush_persistentFailure_isDeadLetteredAfterMaxAttempts() {
+        when(reviewService.ingestReviews(anyList())).thenThrow(new RuntimeException("db down"));
+
+        queue.flush(List.of(buildReview(1L), buildReview(1L)));
+
+        verify(reviewService, times(ReviewIngestionQueue.MAX_ATTEMPTS)).ingestReviews(anyList());
+        assertEquals(2, queue.deadLettered());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void flush_constraintViolation_isolatesBadReviewAndWritesTheRest() {
+        List<Integer> written = new ArrayList<>();
+        when(reviewService.ingestReviews(anyList())).thenAnswer(inv -> {
+            List<Review> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(review -> review.getRating() == 99)) {
+                throw new DataIntegrityViolationException("check constraint violated");
+            }
+            batch.forEach(review -> written.add(review.getRating()));
+            return batch;
+        });
+
+        queue.flush(List.of(buildReview(1L, 1), buildReview(1L, 2), buildReview(1L, 99), buildReview(1L, 4),
+                buildReview(1L, 5)));
+
+        assertEquals(List.of(1, 2, 4, 5), written);
+        assertEquals(1, queue.deadLettered());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void flush_movieDeletedBeforeFlush_deadLettersDroppedReviews() {
+        when(reviewService.ingestReviews(anyList())).thenAnswer(inv -> ((List<Review>) inv.getArgument(0)).stream()
+                .filter(review -> review.getMovie().getId() == 1L)
+                .toList());
+
+        queue.flush(List.of(buildReview(1L), buildReview(2L), buildReview(2L)));
+
+        assertEquals(2, queue.deadLettered());
+    }
+}
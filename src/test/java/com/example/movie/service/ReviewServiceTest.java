@@ -1,16 +1,22 @@
 package com.example.movie.service;
 
 import com.example.movie.exception.MovieNotFoundException;
+import com.example.movie.exception.PreconditionFailedException;
 import com.example.movie.exception.ReviewNotFoundException;
+import com.example.movie.index.InvertedIndex;
+import com.example.movie.index.SearchIndexService;
 import com.example.movie.model.Movie;
 import com.example.movie.model.Review;
 import com.example.movie.repository.MovieRepository;
 import com.example.movie.repository.ReviewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.util.Arrays;
 import java.util.List;
@@ -27,6 +33,24 @@ class ReviewServiceTest {
     @Mock
     private MovieRepository movieRepository;
 
+    @Mock
+    private SearchIndexService searchIndex;
+
+    @Mock
+    private RecommendedMovieCache recommendedMovieCache;
+
+    @Mock
+    private MovieRankingService movieRanking;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private MovieResponseCache movieResponseCache;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private ReviewService reviewService;
 
@@ -83,6 +107,20 @@ class ReviewServiceTest {
         verify(reviewRepository, times(1)).findByMovieId(20L);
     }
 
+    @Test
+    void searchReviews_returnsReviewsInRankOrder() {
+        Review r1 = buildReview(1L, 10L);
+        Review r2 = buildReview(2L, 10L);
+        when(searchIndex.searchReviews("great", 0, 10)).thenReturn(new InvertedIndex.SearchResult(
+                List.of(new InvertedIndex.Hit(2L, 2.5), new InvertedIndex.Hit(1L, 0.5)), 2));
+        when(reviewRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(r1, r2));
+
+        List<Review> result = reviewService.searchReviews("great", 0, 10);
+
+        assertEquals(List.of(r2, r1), result);
+        verify(reviewRepository, never()).findAll();
+    }
+
     @Test
     void getReviewById_existingId_returnsOptional() {
         Review r = buildReview(3L, 30L);
@@ -110,7 +148,7 @@ class ReviewServiceTest {
         Review toCreate = buildReview(null, 40L);
         Movie m = buildMovie(40L);
 
-        when(movieRepository.findById(40L)).thenReturn(Optional.of(m));
+        when(movieRepository.findByIdForUpdate(40L)).thenReturn(Optional.of(m));
         when(reviewRepository.save(any(Review.class))).thenAnswer(inv -> {
             Review saved = inv.getArgument(0);
             saved.setId(1L);
@@ -122,7 +160,13 @@ class ReviewServiceTest {
         assertNotNull(saved);
         assertEquals(1L, saved.getId());
         assertEquals(m, saved.getMovie());
-        verify(movieRepository, times(1)).findById(40L);
+        verify(searchIndex, times(1)).indexReview(saved);
+        verify(recommendedMovieCache, times(1)).evict(m.isRecommended());
+        verify(movieRanking, times(1)).update(m);
+        verify(movieResponseCache, times(1)).evict(40L);
+        assertEquals(1, m.getReviewCount());
+        assertEquals(5.0, m.getAverageRating());
+        verify(movieRepository, times(1)).findByIdForUpdate(40L);
         verify(reviewRepository, times(1)).save(toCreate);
     }
 
@@ -144,7 +188,7 @@ class ReviewServiceTest {
     @Test
     void createReview_movieNotFound_throwsMovieNotFoundException() {
         Review toCreate = buildReview(null, 50L);
-        when(movieRepository.findById(50L)).thenReturn(Optional.empty());
+        when(movieRepository.findByIdForUpdate(50L)).thenReturn(Optional.empty());
 
         MovieNotFoundException ex = assertThrows(
                 MovieNotFoundException.class,
@@ -165,7 +209,7 @@ class ReviewServiceTest {
         Review r1 = buildReview(null, 60L);
         Review r2 = buildReview(null, 60L);
         Movie m = buildMovie(60L);
-        when(movieRepository.findById(60L)).thenReturn(Optional.of(m));
+        when(movieRepository.findAllByIdInForUpdate(List.of(60L))).thenReturn(List.of(m));
         when(reviewRepository.saveAll(anyList())).thenAnswer(inv -> {
             List<Review> list = inv.getArgument(0);
             list.get(0).setId(10L);
@@ -179,21 +223,57 @@ class ReviewServiceTest {
         assertEquals(2, savedList.size());
         assertEquals(10L, savedList.get(0).getId());
         assertEquals(11L, savedList.get(1).getId());
-        verify(movieRepository, times(2)).findById(60L);
+        assertEquals(2, m.getReviewCount());
+        assertEquals(10L, m.getRatingSum());
+        verify(movieRepository, times(1)).findAllByIdInForUpdate(List.of(60L));
+        verify(movieRepository, never()).findByIdForUpdate(any());
         verify(reviewRepository, times(1)).saveAll(input);
     }
 
+    @Test
+    void createReviewsBatch_missingMovies_reportsAllMissingIdsAtOnce() {
+        Review r1 = buildReview(null, 61L);
+        Review r2 = buildReview(null, 62L);
+        Review r3 = buildReview(null, 63L);
+        when(movieRepository.findAllByIdInForUpdate(List.of(61L, 62L, 63L)))
+                .thenReturn(List.of(buildMovie(62L)));
+
+        MovieNotFoundException ex = assertThrows(
+                MovieNotFoundException.class,
+                () -> reviewService.createReviewsBatch(List.of(r1, r2, r3))
+        );
+
+        assertEquals("Movies with IDs [61, 63] not found.", ex.getMessage());
+        verify(movieRepository, times(1)).findAllByIdInForUpdate(anyList());
+        verify(reviewRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void ingestReviews_missingMovie_dropsOnlyItsReviews() {
+        Review r1 = buildReview(null, 64L);
+        Review r2 = buildReview(null, 65L);
+        Movie m = buildMovie(64L);
+        when(movieRepository.findAllByIdInForUpdate(List.of(64L, 65L))).thenReturn(List.of(m));
+        when(reviewRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<Review> saved = reviewService.ingestReviews(List.of(r1, r2));
+
+        assertEquals(List.of(r1), saved);
+        assertEquals(1, m.getReviewCount());
+        verify(reviewRepository, times(1)).saveAll(List.of(r1));
+    }
+
     @Test
     void createReviewsBatch_oneInvalid_throwsIllegalArgumentException() {
         Review r1 = buildReview(null, 70L);
         Review r2 = new Review();
-        when(movieRepository.findById(70L)).thenReturn(Optional.of(buildMovie(70L)));
 
         IllegalArgumentException ex = assertThrows(
                 IllegalArgumentException.class,
                 () -> reviewService.createReviewsBatch(Arrays.asList(r1, r2))
         );
         assertEquals("Review must be linked to a movie", ex.getMessage());
+        verify(movieRepository, never()).findAllByIdInForUpdate(any());
         verify(reviewRepository, never()).saveAll(any());
     }
 
@@ -210,8 +290,10 @@ class ReviewServiceTest {
         updatedData.setRating(9);
 
         Movie newMovie = buildMovie(90L);
+        oldMovie.addRating(existing.getRating());
         when(reviewRepository.findById(id)).thenReturn(Optional.of(existing));
-        when(movieRepository.findById(90L)).thenReturn(Optional.of(newMovie));
+        when(movieRepository.findByIdForUpdate(80L)).thenReturn(Optional.of(oldMovie));
+        when(movieRepository.findByIdForUpdate(90L)).thenReturn(Optional.of(newMovie));
         when(reviewRepository.save(any(Review.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Review result = reviewService.updateReview(id, updatedData);
@@ -220,8 +302,11 @@ class ReviewServiceTest {
         assertEquals("updated comment", result.getComment());
         assertEquals(9, result.getRating());
         assertEquals(newMovie, result.getMovie());
+        assertEquals(0, oldMovie.getReviewCount());
+        assertEquals(1, newMovie.getReviewCount());
+        assertEquals(9.0, newMovie.getAverageRating());
         verify(reviewRepository, times(1)).findById(id);
-        verify(movieRepository, times(1)).findById(90L);
+        verify(movieRepository, times(1)).findByIdForUpdate(90L);
         verify(reviewRepository, times(1)).save(existing);
     }
 
@@ -237,7 +322,9 @@ class ReviewServiceTest {
         updatedData.setComment("commentX");
         updatedData.setRating(3);
 
+        m.addRating(existing.getRating());
         when(reviewRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.findByIdForUpdate(100L)).thenReturn(Optional.of(m));
         when(reviewRepository.save(any(Review.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Review result = reviewService.updateReview(id, updatedData);
@@ -246,11 +333,30 @@ class ReviewServiceTest {
         assertEquals("commentX", result.getComment());
         assertEquals(3, result.getRating());
         assertEquals(m, result.getMovie());
+        assertEquals(1, m.getReviewCount());
+        assertEquals(3.0, m.getAverageRating());
         verify(reviewRepository, times(1)).findById(id);
-        verify(movieRepository, never()).findById(any());
+        verify(movieRepository, times(1)).findByIdForUpdate(100L);
         verify(reviewRepository, times(1)).save(existing);
     }
 
+    @Test
+    void updateReview_staleExpectedVersion_throwsWithoutChanges() {
+        Long id = 6L;
+        Review existing = buildReview(id, 80L);
+        existing.setMovie(buildMovie(80L));
+        existing.setVersion(3);
+        Review updatedData = buildReview(null, 80L);
+        updatedData.setComment("stale comment");
+        when(reviewRepository.findById(id)).thenReturn(Optional.of(existing));
+
+        assertThrows(PreconditionFailedException.class, () -> reviewService.updateReview(id, updatedData, 2L));
+
+        assertNotEquals("stale comment", existing.getComment());
+        verify(movieRepository, never()).findByIdForUpdate(anyLong());
+        verify(reviewRepository, never()).save(any());
+    }
+
     @Test
     void updateReview_nonExistingId_throwsReviewNotFoundException() {
         Long id = 99L;
@@ -275,19 +381,25 @@ class ReviewServiceTest {
     @Test
     void deleteReviewById_existingId_deletes() {
         Long id = 7L;
-        when(reviewRepository.existsById(id)).thenReturn(true);
-        doNothing().when(reviewRepository).deleteById(id);
+        Review existing = buildReview(id, 120L);
+        Movie m = buildMovie(120L);
+        m.addRating(existing.getRating());
+        when(reviewRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(movieRepository.findByIdForUpdate(120L)).thenReturn(Optional.of(m));
 
         reviewService.deleteReviewById(id);
 
-        verify(reviewRepository, times(1)).existsById(id);
-        verify(reviewRepository, times(1)).deleteById(id);
+        assertEquals(0, m.getReviewCount());
+        assertEquals(0.0, m.getAverageRating());
+        verify(reviewRepository, times(1)).findById(id);
+        verify(reviewRepository, times(1)).delete(existing);
+        verify(searchIndex, times(1)).removeReview(id);
     }
 
     @Test
     void deleteReviewById_nonExistingId_throwsReviewNotFoundException() {
         Long id = 88L;
-        when(reviewRepository.existsById(id)).thenReturn(false);
+        when(reviewRepository.findById(id)).thenReturn(Optional.empty());
 
         ReviewNotFoundException ex = assertThrows(
                 ReviewNotFoundException.class,
@@ -299,17 +411,87 @@ class ReviewServiceTest {
         assertTrue(ex.getMessage().contains(expectedMessagePart),
                 "Expected exception message to contain: " + expectedMessagePart + " but was: " + ex.getMessage());
 
-        verify(reviewRepository, times(1)).existsById(id);
-        verify(reviewRepository, never()).deleteById(any());
+        verify(reviewRepository, times(1)).findById(id);
+        verify(reviewRepository, never()).delete(any());
     }
 
 
     @Test
-    void deleteAllReviews_delegatesToRepository() {
-        doNothing().when(reviewRepository).deleteAll();
-
+    void deleteAllReviews_deletesInBatch() {
         reviewService.deleteAllReviews();
 
-        verify(reviewRepository, times(1)).deleteAll();
+        verify(reviewRepository, times(1)).deleteAllInBatch();
+        verify(reviewRepository, never()).deleteAll();
+        verify(movieRepository, times(1)).resetRatingStatistics();
+    }
+
+    @Test
+    void patchReview_commentOnly_doesNotLockMovie() throws Exception {
+        Review existing = buildReview(7L, 100L);
+        existing.setMovie(buildMovie(100L));
+        when(reviewRepository.findById(7L)).thenReturn(Optional.of(existing));
+
+        Review result = reviewService.patchReview(7L, objectMapper.readTree("{\"comment\":\"patched\"}"), null);
+
+        assertEquals("patched", result.getComment());
+        assertEquals("user7", result.getUsername());
+        verify(validator).validateProperty(existing, "comment");
+        verify(validator, never()).validate(any());
+        verify(movieRepository, never()).findByIdForUpdate(anyLong());
+        verify(searchIndex).indexReview(existing);
+        verify(recommendedMovieCache).evict(existing.getMovie().isRecommended());
+        verify(movieRanking, never()).update(any());
+    }
+
+    @Test
+    void patchReview_rating_adjustsMovieStatistics() throws Exception {
+        Review existing = buildReview(8L, 100L);
+        existing.setRating(4);
+        Movie movie = buildMovie(100L);
+        movie.addRating(4);
+        existing.setMovie(movie);
+        when(reviewRepository.findById(8L)).thenReturn(Optional.of(existing));
+        when(movieRepository.findByIdForUpdate(100L)).thenReturn(Optional.of(movie));
+
+        reviewService.patchReview(8L, objectMapper.readTree("{\"rating\":9}"), null);
+
+        assertEquals(9, existing.getRating());
+        assertEquals(1, movie.getReviewCount());
+        assertEquals(9.0, movie.getAverageRating());
+        verify(movieRanking).update(movie);
+    }
+
+    @Test
+    void patchReview_movieField_isRejected() throws Exception {
+        Review existing = buildReview(9L, 100L);
+        when(reviewRepository.findById(9L)).thenReturn(Optional.of(existing));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> reviewService.patchReview(9L, objectMapper.readTree("{\"movie\":{\"id\":5}}"), null));
+        verify(searchIndex, never()).indexReview(any());
+    }
+
+    @Test
+    void patchReview_staleVersion_throwsPreconditionFailedWithoutChanges() throws Exception {
+        Review existing = buildReview(11L, 100L);
+        existing.setVersion(3);
+        existing.setRating(4);
+        existing.setMovie(buildMovie(100L));
+        when(reviewRepository.findById(11L)).thenReturn(Optional.of(existing));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> reviewService.patchReview(11L, objectMapper.readTree("{\"rating\":9}"), 2L));
+
+        assertEquals(4, existing.getRating());
+        verify(movieRepository, never()).findByIdForUpdate(anyLong());
+        verify(searchIndex, never()).indexReview(any());
+    }
+
+    @Test
+    void patchReview_notFound_throwsReviewNotFoundException() throws Exception {
+        when(reviewRepository.findById(10L)).thenReturn(Optional.empty());
+
+        assertThrows(ReviewNotFoundException.class,
+                () -> reviewService.patchReview(10L, objectMapper.readTree("{\"comment\":\"x\"}"), null));
     }
 }
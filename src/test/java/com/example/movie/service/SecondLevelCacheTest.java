@@ -0,0 +1,179 @@
+package com.example.movie.service;
+
+import com.example.movie.model.Movie;
+import com.example.movie.model.Review;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:l2cache;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SecondLevelCacheTest {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    private long movieId;
+
+    @BeforeEach
+    void setUp() {
+        movieService.deleteAll();
+        Movie movie = new Movie();
+        movie.setTitle("Cache");
+        movie.setGenre("Drama");
+        movie.setReleaseDate(LocalDate.of(2020, 1, 1));
+        for (int i = 0; i < 2; i++) {
+            Review review = new Review();
+            review.setUsername("user" + i);
+            review.setComment("Comment " + i);
+            review.setRating(5);
+            review.setMovie(movie);
+            movie.getReviews().add(review);
+        }
+        movieId = movieService.createMovies(List.of(movie)).get(0).getId();
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private Movie readTwice() {
+        movieService.getMovieById(movieId).orElseThrow();
+        statistics.clear();
+        return movieService.getMovieById(movieId).orElseThrow();
+    }
+
+    // Stellt sicher, dass Film und Reviews-Collection vor dem Schreiben aus dem Cache kommen
+    private Movie warmCache() {
+        Movie movie = readTwice();
+        assertEquals(0, statistics.getPrepareStatementCount());
+        return movie;
+    }
+
+    private Movie read() {
+        return movieService.getMovieById(movieId).orElseThrow();
+    }
+
+    private Review newReview(String comment) {
+        Review review = new Review();
+        review.setUsername("neu");
+        review.setComment(comment);
+        review.setRating(9);
+        Movie ref = new Movie();
+        ref.setId(movieId);
+        review.setMovie(ref);
+        return review;
+    }
+
+    @Test
+    void getMovieById_secondRead_comesFromCacheWithoutStatements() {
+        Movie movie = readTwice();
+
+        assertEquals(2, movie.getReviews().size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateMovie_evictsCachedMovie() {
+        Movie cached = warmCache();
+        Movie changed = new Movie();
+        changed.setTitle("Neuer Titel");
+        changed.setGenre(cached.getGenre());
+        changed.setReleaseDate(cached.getReleaseDate());
+        changed.setAgeRating(16);
+
+        movieService.updateMovie(movieId, changed);
+
+        Movie movie = read();
+        assertEquals("Neuer Titel", movie.getTitle());
+        assertEquals(2, movie.getReviews().size());
+    }
+
+    @Test
+    void patchMovie_evictsCachedMovie() throws Exception {
+        warmCache();
+
+        movieService.patchMovie(movieId, objectMapper.readTree("{\"ageRating\":18}"), null);
+
+        assertEquals(18, read().getAgeRating());
+    }
+
+    @Test
+    void upsertMovies_evictsCachedMovie() {
+        Movie cached = warmCache();
+        Movie incoming = new Movie();
+        incoming.setTitle(cached.getTitle());
+        incoming.setGenre(cached.getGenre());
+        incoming.setReleaseDate(cached.getReleaseDate());
+        incoming.setAgeRating(12);
+        incoming.setRecommended(true);
+
+        movieService.upsertMovies(List.of(incoming));
+
+        Movie movie = read();
+        assertEquals(12, movie.getAgeRating());
+        assertTrue(movie.isRecommended());
+    }
+
+    @Test
+    void createReview_evictsCachedReviewsCollection() {
+        warmCache();
+
+        reviewService.createReview(newReview("Dritte"));
+
+        Movie movie = read();
+        assertEquals(3, movie.getReviews().size());
+        assertEquals(3, movie.getReviewCount());
+    }
+
+    @Test
+    void updateAndPatchReview_evictCachedReview() throws Exception {
+        Long reviewId = warmCache().getReviews().get(0).getId();
+
+        reviewService.updateReview(reviewId, newReview("Geändert"));
+        assertTrue(read().getReviews().stream().anyMatch(r -> r.getComment().equals("Geändert")));
+
+        warmCache();
+        reviewService.patchReview(reviewId, objectMapper.readTree("{\"comment\":\"Gepatcht\"}"), null);
+        assertTrue(read().getReviews().stream().anyMatch(r -> r.getComment().equals("Gepatcht")));
+    }
+
+    @Test
+    void deleteReview_evictsCachedReviewsCollection() {
+        Long reviewId = warmCache().getReviews().get(0).getId();
+
+        reviewService.deleteReviewById(reviewId);
+
+        Movie movie = read();
+        assertEquals(1, movie.getReviews().size());
+        assertEquals(1, movie.getReviewCount());
+    }
+}
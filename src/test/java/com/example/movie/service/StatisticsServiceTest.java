@@ -0,0 +1,99 @@
+package com.example.movie.service;
+
+import com.example.movie.config.ReplicaRoutingDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class StatisticsServiceTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Statistics statistics;
+
+    @Mock
+    private CacheRegionStatistics regionStatistics;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private ObjectProvider<ReplicaRoutingDataSource> routingDataSourceProvider;
+
+    @Mock
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private StatisticsService statisticsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Explizit verdrahten: der SessionFactory-Mock ist auch eine EntityManagerFactory und würde sonst injiziert
+        statisticsService = new StatisticsService(entityManagerFactory, dataSource, routingDataSourceProvider);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.getDomainDataRegionStatistics(anyString())).thenReturn(regionStatistics);
+    }
+
+    @Test
+    void getCacheStatistics_reportsHitsAndMissesPerRegionAndTotal() {
+        when(regionStatistics.getHitCount()).thenReturn(7L);
+        when(regionStatistics.getMissCount()).thenReturn(3L);
+        when(statistics.getSecondLevelCacheHitCount()).thenReturn(21L);
+        when(statistics.getSecondLevelCacheMissCount()).thenReturn(9L);
+
+        Map<String, Map<String, Long>> result = statisticsService.getCacheStatistics();
+
+        assertEquals(StatisticsService.CACHE_REGIONS.size() + 1, result.size());
+        assertEquals(7L, result.get("com.example.movie.model.Movie").get("hits"));
+        assertEquals(3L, result.get("com.example.movie.model.Review").get("misses"));
+        assertEquals(21L, result.get("total").get("hits"));
+        assertEquals(9L, result.get("total").get("misses"));
+    }
+
+    @Test
+    void getDataSourceStatistics_withoutReplica_reportsOnlyPrimary() {
+        when(routingDataSourceProvider.getIfAvailable()).thenReturn(null);
+
+        Map<String, Map<String, Object>> result = statisticsService.getDataSourceStatistics();
+
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey("primary"));
+    }
+
+    @Test
+    void getDataSourceStatistics_withReplica_reportsRoutingPerPool() {
+        when(routingDataSourceProvider.getIfAvailable()).thenReturn(routingDataSource);
+        when(routingDataSource.getConnectionCount(ReplicaRoutingDataSource.Route.PRIMARY)).thenReturn(4L);
+        when(routingDataSource.getConnectionCount(ReplicaRoutingDataSource.Route.REPLICA)).thenReturn(11L);
+        when(routingDataSource.isReplicaAvailable()).thenReturn(true);
+        when(routingDataSource.getLastLagSeconds()).thenReturn(1L);
+        when(routingDataSource.getFallbackCount()).thenReturn(2L);
+
+        Map<String, Map<String, Object>> result = statisticsService.getDataSourceStatistics();
+
+        assertEquals(4L, result.get("primary").get("routedConnections"));
+        assertEquals(11L, result.get("replica").get("routedConnections"));
+        assertEquals(true, result.get("replica").get("available"));
+        assertEquals(2L, result.get("replica").get("fallbacksToPrimary"));
+    }
+}